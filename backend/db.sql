@@ -9,11 +9,58 @@ CREATE TABLE IF NOT EXISTS `external_call_log` (
     `success` INT(11) NOT NULL COMMENT '是否成功：0-失败，1-成功',
     `attempt` INT(11) NOT NULL COMMENT '重试次数',
     `duration_ms` BIGINT(20) DEFAULT NULL COMMENT '耗时（毫秒）',
+    `wire_bytes` BIGINT(20) DEFAULT NULL COMMENT '响应传输字节数（压缩后）',
+    `decoded_bytes` BIGINT(20) DEFAULT NULL COMMENT '响应解压后字节数',
     `exception_type` VARCHAR(64) DEFAULT NULL COMMENT '异常类型',
     `exception_message` TEXT DEFAULT NULL COMMENT '异常信息',
+    `body_hash` CHAR(32) DEFAULT NULL COMMENT '响应体指纹（成功调用不保存响应体时记录）',
     `created_at` DATETIME NOT NULL COMMENT '创建时间',
-    PRIMARY KEY (`id`),
-    KEY `idx_trace_id` (`trace_id`),
-    KEY `idx_service` (`service`),
+    PRIMARY KEY (`id`, `created_at`),
+    KEY `idx_trace_id` (`trace_id`, `created_at`, `success`),
+    KEY `idx_service_created_at` (`service`, `created_at`, `success`),
     KEY `idx_created_at` (`created_at`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='外部调用日志表';
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='外部调用日志表'
+-- 二级索引隐含主键 (id, created_at)，键集分页只取 (id, created_at) 时由索引覆盖
+-- idx_created_at 供未分区时 CallLogRetentionJob 按 created_at 范围小批量删除
+-- 按天分区：CallLogRetentionJob 从 p_future 中预建后续日期的分区（pYYYYMMDD），并删除过期分区
+PARTITION BY RANGE (TO_DAYS(`created_at`)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-01-01')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+CREATE TABLE IF NOT EXISTS `external_call_stats` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `minute_start` DATETIME NOT NULL COMMENT '统计分钟（起始时间）',
+    `service` VARCHAR(64) NOT NULL COMMENT '服务名称',
+    `http_status` INT(11) NOT NULL COMMENT 'HTTP状态码，0 表示无响应（超时、IO 异常等）',
+    `call_count` BIGINT(20) NOT NULL COMMENT '调用次数',
+    `error_count` BIGINT(20) NOT NULL COMMENT '失败次数',
+    `total_ms` BIGINT(20) NOT NULL COMMENT '总耗时（毫秒）',
+    `max_ms` BIGINT(20) NOT NULL COMMENT '最大耗时（毫秒）',
+    `p50_ms` BIGINT(20) NOT NULL COMMENT 'P50 耗时（毫秒）',
+    `p95_ms` BIGINT(20) NOT NULL COMMENT 'P95 耗时（毫秒）',
+    `p99_ms` BIGINT(20) NOT NULL COMMENT 'P99 耗时（毫秒）',
+    `histogram` BLOB NOT NULL COMMENT '耗时直方图（HdrHistogram 压缩编码，可合并）',
+    `created_at` DATETIME NOT NULL COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_service_minute` (`service`, `minute_start`),
+    KEY `idx_minute` (`minute_start`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='外部调用分钟汇总表';
+
+-- 已有库升级：
+-- ALTER TABLE `external_call_log`
+--     ADD COLUMN `wire_bytes` BIGINT(20) DEFAULT NULL COMMENT '响应传输字节数（压缩后）' AFTER `duration_ms`,
+--     ADD COLUMN `decoded_bytes` BIGINT(20) DEFAULT NULL COMMENT '响应解压后字节数' AFTER `wire_bytes`,
+--     ADD COLUMN `body_hash` CHAR(32) DEFAULT NULL COMMENT '响应体指纹（成功调用不保存响应体时记录）' AFTER `exception_message`;
+-- 已有的未分区 external_call_log 改为分区表（需重建表，建议在低峰期执行）：
+-- ALTER TABLE `external_call_log`
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `created_at`),
+--     DROP INDEX `idx_service`, DROP INDEX `idx_trace_id`,
+--     ADD INDEX `idx_trace_id` (`trace_id`, `created_at`, `success`),
+--     ADD INDEX `idx_service_created_at` (`service`, `created_at`, `success`);
+-- ALTER TABLE `external_call_log` PARTITION BY RANGE (TO_DAYS(`created_at`)) (
+--     PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-01-01')),
+--     PARTITION p_future VALUES LESS THAN MAXVALUE
+-- );
+-- 已是分区表、idx_trace_id 不含 success 时：
+-- ALTER TABLE `external_call_log` DROP INDEX `idx_trace_id`, ADD INDEX `idx_trace_id` (`trace_id`, `created_at`, `success`);
@@ -0,0 +1,18 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.DictQueryRequestDTO;
+import lombok.Value;
+
+@Value
+public class DictCacheKey {
+
+    String dictType;
+
+    Integer pageNum;
+
+    Integer pageSize;
+
+    public static DictCacheKey of(DictQueryRequestDTO request) {
+        return new DictCacheKey(request.getDictType(), request.getPageNum(), request.getPageSize());
+    }
+}
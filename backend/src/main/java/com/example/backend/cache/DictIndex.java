@@ -0,0 +1,86 @@
+package com.example.backend.cache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某个 dictType 的 code -> label 只读索引。
+ * <p>
+ * 开放寻址哈希表（线性探测），code 与 label 分别存放在两个平行数组中，没有 Map.Entry 对象开销；
+ * 相同的 label 只保留一份实例。创建后不可变，可无锁并发读取。
+ */
+public final class DictIndex {
+
+    private final String dictType;
+    private final String[] codes;
+    private final String[] labels;
+    private final int mask;
+    private final int size;
+
+    private DictIndex(String dictType, String[] codes, String[] labels, int size) {
+        this.dictType = dictType;
+        this.codes = codes;
+        this.labels = labels;
+        this.mask = codes.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * code 为空的项被忽略；重复 code 以先出现的为准，与上游分页顺序一致。
+     */
+    public static DictIndex build(String dictType, List<String> codes, List<String> labels) {
+        int capacity = Integer.highestOneBit(Math.max(2, codes.size() * 2 - 1)) << 1;
+        String[] table = new String[capacity];
+        String[] values = new String[capacity];
+        Map<String, String> interned = new HashMap<>();
+        int size = 0;
+        for (int i = 0; i < codes.size(); i++) {
+            String code = codes.get(i);
+            if (code == null) {
+                continue;
+            }
+            int slot = slotOf(table, capacity - 1, code);
+            if (table[slot] != null) {
+                continue;
+            }
+            String label = labels.get(i);
+            table[slot] = code;
+            values[slot] = label != null ? interned.computeIfAbsent(label, l -> l) : null;
+            size++;
+        }
+        return new DictIndex(dictType, table, values, size);
+    }
+
+    public String label(String code) {
+        if (code == null) {
+            return null;
+        }
+        int slot = slotOf(codes, mask, code);
+        return codes[slot] != null ? labels[slot] : null;
+    }
+
+    public boolean contains(String code) {
+        return code != null && codes[slotOf(codes, mask, code)] != null;
+    }
+
+    public String getDictType() {
+        return dictType;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 返回 code 所在槽位，或探测到的第一个空槽位。表容量至少为条目数的两倍，总能找到空槽位。
+     */
+    private static int slotOf(String[] table, int mask, String code) {
+        int h = code.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (table[slot] != null && !table[slot].equals(code)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.backend.cache;
+
+import com.example.backend.common.RawJson;
+import com.example.backend.config.ThirdPartyProperties;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字典响应本地缓存：按 dictType 配置 TTL，同时限制条目数与总字节数。响应以 UTF-8 字节保存。
+ * <p>
+ * Guava 不能同时设置 maximumSize 与 maximumWeight，这里让每个条目的权重至少为
+ * maxBytes / maxEntries，总权重不超过 maxBytes 时条目数也就不会超过 maxEntries。
+ * <p>
+ * 条目过期后不会立即删除：在 staleWhileRevalidate 窗口内仍可返回旧值并触发后台刷新，
+ * 在 staleIfError 窗口内可在上游失败时兜底返回。
+ * <p>
+ * 同时保存上游返回的校验器（ETag / Last-Modified），过期后可向上游发条件请求，304 时沿用旧值。
+ */
+@Component
+public class DictResponseCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    public enum Freshness {
+        FRESH,
+        STALE,
+        STALE_IF_ERROR
+    }
+
+    private final ThirdPartyProperties.Cache config;
+    private final Ticker ticker;
+    private final Cache<DictCacheKey, Entry> cache;
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final Counter hitCounter;
+    private final Counter staleCounter;
+    private final Counter missCounter;
+
+    @Autowired
+    public DictResponseCache(ThirdPartyProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getCache(), meterRegistry, Ticker.systemTicker());
+    }
+
+    DictResponseCache(ThirdPartyProperties.Cache config, MeterRegistry meterRegistry, Ticker ticker) {
+        this.config = config;
+        this.ticker = ticker;
+        this.meterRegistry = meterRegistry;
+
+        ThirdPartyProperties.Cache.Refresh refresh = config.getRefresh();
+        long retainAfterExpire = refresh.isEnabled()
+                ? Math.max(refresh.getStaleWhileRevalidate(), refresh.getStaleIfError())
+                : 0;
+        int minWeight = (int) Math.max(1, config.getMaxBytes() / Math.max(1, config.getMaxEntries()));
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxBytes())
+                .weigher((DictCacheKey key, Entry entry) -> Math.max(entry.getBytes(), minWeight))
+                .expireAfterWrite(maxTtl() + retainAfterExpire, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .removalListener(this::onRemoval)
+                .build();
+
+        this.hitCounter = Counter.builder("dict.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.staleCounter = Counter.builder("dict.cache.requests").tag("result", "stale").register(meterRegistry);
+        this.missCounter = Counter.builder("dict.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("dict.cache.size", cache, Cache::size).register(meterRegistry);
+        Gauge.builder("dict.cache.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * 只返回未过期的值。
+     */
+    public RawJson get(DictCacheKey key) {
+        Lookup lookup = lookup(key);
+        return lookup != null && lookup.getFreshness() == Freshness.FRESH ? lookup.getBody() : null;
+    }
+
+    /**
+     * 查询缓存；过期但处于 staleWhileRevalidate 窗口内的条目会被标记为待刷新。
+     * 超出所有窗口时返回 null。
+     */
+    public Lookup lookup(DictCacheKey key) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(key);
+        long now = ticker.read();
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (!entry.isExpired(now)) {
+            entry.hits.incrementAndGet();
+            hitCounter.increment();
+            return new Lookup(entry, Freshness.FRESH);
+        }
+
+        ThirdPartyProperties.Cache.Refresh refresh = config.getRefresh();
+        long staleNanos = now - entry.getExpireAtNanos();
+        if (!refresh.isEnabled()) {
+            missCounter.increment();
+            return null;
+        }
+        if (staleNanos < TimeUnit.MILLISECONDS.toNanos(refresh.getStaleWhileRevalidate())) {
+            entry.refreshRequested = true;
+            staleCounter.increment();
+            return new Lookup(entry, Freshness.STALE);
+        }
+        missCounter.increment();
+        if (staleNanos < TimeUnit.MILLISECONDS.toNanos(refresh.getStaleIfError())) {
+            return new Lookup(entry, Freshness.STALE_IF_ERROR);
+        }
+        return null;
+    }
+
+    /**
+     * 不计入命中统计地读取条目（含过期未删除的），用于后台刷新时取校验器。
+     */
+    public Lookup peek(DictCacheKey key) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        return new Lookup(entry, entry.isExpired(ticker.read()) ? Freshness.STALE : Freshness.FRESH);
+    }
+
+    public void put(DictCacheKey key, RawJson body) {
+        put(key, body, null, null);
+    }
+
+    /**
+     * @param etag         上游 ETag，可为空
+     * @param lastModified 上游 Last-Modified，可为空
+     */
+    public void put(DictCacheKey key, RawJson body, String etag, String lastModified) {
+        if (!config.isEnabled() || body == null) {
+            return;
+        }
+        long ttl = ttlOf(key.getDictType());
+        if (ttl <= 0) {
+            return;
+        }
+        long now = ticker.read();
+        Entry entry = new Entry(body, etag, lastModified, now, now + TimeUnit.MILLISECONDS.toNanos(ttl));
+        totalBytes.addAndGet(entry.getBytes());
+        cache.put(key, entry);
+    }
+
+    /**
+     * 选出需要后台刷新的 key：被读到过期旧值的条目优先，其次是访问次数达到阈值且即将过期的热点条目。
+     */
+    public List<DictCacheKey> refreshCandidates(int limit) {
+        List<DictCacheKey> requested = new ArrayList<>();
+        List<DictCacheKey> hot = new ArrayList<>();
+        if (!config.isEnabled() || !config.getRefresh().isEnabled() || limit <= 0) {
+            return requested;
+        }
+        ThirdPartyProperties.Cache.Refresh refresh = config.getRefresh();
+        long now = ticker.read();
+        long swrNanos = TimeUnit.MILLISECONDS.toNanos(refresh.getStaleWhileRevalidate());
+        for (Map.Entry<DictCacheKey, Entry> e : cache.asMap().entrySet()) {
+            Entry entry = e.getValue();
+            if (now - entry.getExpireAtNanos() >= swrNanos) {
+                continue;
+            }
+            if (entry.refreshRequested) {
+                requested.add(e.getKey());
+            } else if (entry.hits.get() >= refresh.getHotThreshold()
+                    && now - entry.getWriteNanos() >= (long) (entry.ttlNanos() * refresh.getAheadRatio())) {
+                hot.add(e.getKey());
+            }
+        }
+        requested.addAll(hot);
+        return requested.size() > limit ? new ArrayList<>(requested.subList(0, limit)) : requested;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long bytes() {
+        return totalBytes.get();
+    }
+
+    long ttlOf(String dictType) {
+        Long ttl = config.getDictTtl().get(dictType);
+        return ttl != null ? ttl : config.getDefaultTtl();
+    }
+
+    private long maxTtl() {
+        long max = config.getDefaultTtl();
+        for (Long ttl : config.getDictTtl().values()) {
+            max = Math.max(max, ttl);
+        }
+        return Math.max(max, 1);
+    }
+
+    private void onRemoval(RemovalNotification<DictCacheKey, Entry> notification) {
+        Entry entry = notification.getValue();
+        if (entry != null) {
+            totalBytes.addAndGet(-entry.getBytes());
+        }
+        if (notification.wasEvicted()) {
+            meterRegistry.counter("dict.cache.evictions",
+                    "cause", notification.getCause().name().toLowerCase()).increment();
+        }
+    }
+
+    @Getter
+    public static final class Lookup {
+
+        private final RawJson body;
+        private final Freshness freshness;
+        private final String etag;
+        private final String lastModified;
+
+        Lookup(Entry entry, Freshness freshness) {
+            this.body = entry.getBody();
+            this.freshness = freshness;
+            this.etag = entry.getEtag();
+            this.lastModified = entry.getLastModified();
+        }
+
+        public boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    @Getter
+    static final class Entry {
+
+        private final RawJson body;
+        private final String etag;
+        private final String lastModified;
+        private final long writeNanos;
+        private final long expireAtNanos;
+        private final int bytes;
+        private final AtomicInteger hits = new AtomicInteger();
+        private volatile boolean refreshRequested;
+
+        Entry(RawJson body, String etag, String lastModified, long writeNanos, long expireAtNanos) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.writeNanos = writeNanos;
+            this.expireAtNanos = expireAtNanos;
+            this.bytes = body.length() + ENTRY_OVERHEAD_BYTES;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expireAtNanos >= 0;
+        }
+
+        long ttlNanos() {
+            return expireAtNanos - writeNanos;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.cache;
+
+import lombok.Getter;
+
+/**
+ * 某个 dictType 的全量字典快照，创建后不可变。items 保存每个字典项的原始 JSON，
+ * 分页时直接拼接成与上游一致的响应结构；index 为同一批数据构建的 code -> label 索引。
+ */
+@Getter
+public class DictSnapshot {
+
+    private static final int DEFAULT_PAGE_NUM = 1;
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    private final String dictType;
+    private final String[] items;
+    private final DictIndex index;
+    private final long loadedAtMillis;
+
+    public DictSnapshot(String dictType, String[] items, DictIndex index, long loadedAtMillis) {
+        this.dictType = dictType;
+        this.items = items;
+        this.index = index;
+        this.loadedAtMillis = loadedAtMillis;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public String page(Integer pageNum, Integer pageSize) {
+        int num = pageNum != null ? pageNum : DEFAULT_PAGE_NUM;
+        int size = pageSize != null ? pageSize : DEFAULT_PAGE_SIZE;
+        int total = items.length;
+        int totalPage = (total + size - 1) / size;
+        int from = (int) Math.min(total, (long) (num - 1) * size);
+        int to = Math.min(total, from + size);
+
+        StringBuilder sb = new StringBuilder(64 + (to - from) * 32);
+        sb.append("{\"total\":").append(total).append(",\"data\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append(items[i]);
+        }
+        sb.append("],\"totalPage\":").append(totalPage)
+                .append(",\"currentPageNum\":").append(num)
+                .append(",\"pageSize\":").append(size)
+                .append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.backend.cache;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * 全量字典快照：后台按页拉取完整 dictType 后整体替换，读请求只读取当前快照引用，不加锁。
+ * <p>
+ * 同时维护 code -> label 索引：快照类型直接使用快照的索引；其它 dictType 按需全量拉取后
+ * 只保留索引，超过 refreshAfter 后由调用方在后台重新加载（期间继续使用旧索引），超过 ttl 仍未更新则淘汰。
+ */
+@Slf4j
+@Component
+public class DictSnapshotStore {
+
+    private final ThirdPartyProperties.Snapshot config;
+    private final ThirdPartyProperties.Index indexConfig;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, DictSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Cache<String, LoadedIndex> indexes;
+
+    public DictSnapshotStore(ThirdPartyProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.config = properties.getSnapshot();
+        this.indexConfig = properties.getIndex();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.indexes = CacheBuilder.newBuilder()
+                .maximumSize(indexConfig.getMaxDictTypes())
+                .expireAfterWrite(indexConfig.getTtl(), TimeUnit.MILLISECONDS)
+                .build();
+        Gauge.builder("dict.snapshot.count", snapshots, ConcurrentMap::size).register(meterRegistry);
+        Gauge.builder("dict.snapshot.items", snapshots,
+                m -> m.values().stream().mapToInt(DictSnapshot::size).sum()).register(meterRegistry);
+        Gauge.builder("dict.index.count", indexes, Cache::size).register(meterRegistry);
+    }
+
+    public boolean isSnapshotType(String dictType) {
+        return config.isEnabled() && config.getDictTypes().contains(dictType);
+    }
+
+    public DictSnapshot get(String dictType) {
+        if (!isSnapshotType(dictType)) {
+            return null;
+        }
+        return snapshots.get(dictType);
+    }
+
+    /**
+     * 逐页拉取并构建新快照，全部成功后才替换旧快照；任意一页失败时保留旧快照并抛出异常。
+     *
+     * @param pageFetcher 入参为页码，返回该页上游响应 body
+     */
+    public DictSnapshot refresh(String dictType, IntFunction<String> pageFetcher) {
+        Loaded loaded = loadAll(dictType, pageFetcher);
+        DictSnapshot snapshot = new DictSnapshot(dictType, loaded.items.toArray(new String[0]),
+                loaded.index(dictType), System.currentTimeMillis());
+        snapshots.put(dictType, snapshot);
+        log.info("字典快照已更新: dictType={}, items={}, pages={}", dictType, snapshot.size(), loaded.pages);
+        return snapshot;
+    }
+
+    /**
+     * 当前可用的索引：快照类型取快照索引，其它类型取按需加载的索引；都没有时返回 null。
+     */
+    public DictIndex index(String dictType) {
+        DictSnapshot snapshot = get(dictType);
+        if (snapshot != null) {
+            return snapshot.getIndex();
+        }
+        if (!indexConfig.isEnabled()) {
+            return null;
+        }
+        LoadedIndex loaded = indexes.getIfPresent(dictType);
+        return loaded != null ? loaded.index : null;
+    }
+
+    /**
+     * 按需加载的索引已超过 refreshAfter，需要在后台重新加载；快照类型由快照定时刷新，始终返回 false。
+     */
+    public boolean needsRefresh(String dictType) {
+        if (get(dictType) != null) {
+            return false;
+        }
+        LoadedIndex loaded = indexes.getIfPresent(dictType);
+        return loaded != null
+                && System.currentTimeMillis() - loaded.loadedAtMillis >= indexConfig.getRefreshAfter();
+    }
+
+    /**
+     * 全量拉取非快照类型的字典，只保留索引。
+     */
+    public DictIndex loadIndex(String dictType, IntFunction<String> pageFetcher) {
+        Loaded loaded = loadAll(dictType, pageFetcher);
+        DictIndex index = loaded.index(dictType);
+        indexes.put(dictType, new LoadedIndex(index, System.currentTimeMillis()));
+        log.info("字典索引已加载: dictType={}, codes={}, pages={}", dictType, index.size(), loaded.pages);
+        return index;
+    }
+
+    public void recordServed(String dictType) {
+        meterRegistry.counter("dict.snapshot.requests", "dictType", dictType).increment();
+    }
+
+    /**
+     * 逐页拉取：响应带 total 时取满 total 条为止；不带 total 时一直取到空页，或比第一页短的一页
+     * （上游可能把每页条数限制在请求的 pageSize 以下，因此以第一页的条数为准）。
+     */
+    private Loaded loadAll(String dictType, IntFunction<String> pageFetcher) {
+        Loaded loaded = new Loaded();
+        int pageNum = 1;
+        int firstPageSize = 0;
+        while (true) {
+            JsonNode root = parse(dictType, pageFetcher.apply(pageNum));
+            JsonNode data = root.path("data");
+            if (!data.isArray()) {
+                throw new IllegalStateException("字典响应缺少 data 数组: " + dictType);
+            }
+            if (data.size() == 0) {
+                break;
+            }
+            loaded.pages = pageNum;
+            if (pageNum == 1) {
+                firstPageSize = data.size();
+            }
+            for (JsonNode item : data) {
+                loaded.items.add(item.toString());
+                loaded.codes.add(item.path(indexConfig.getCodeField()).asText(null));
+                loaded.labels.add(item.path(indexConfig.getLabelField()).asText(null));
+            }
+            if (loaded.items.size() > config.getMaxItems()) {
+                throw new IllegalStateException("字典条目数超过快照上限: " + dictType);
+            }
+            JsonNode total = root.path("total");
+            boolean done = total.isNumber()
+                    ? loaded.items.size() >= total.asLong()
+                    : data.size() < firstPageSize;
+            if (done) {
+                break;
+            }
+            pageNum++;
+        }
+        return loaded;
+    }
+
+    private JsonNode parse(String dictType, String body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (root.has("success") && !root.path("success").asBoolean()) {
+                throw new IllegalStateException("上游返回失败: " + dictType + ", " + root.path("errMessage").asText());
+            }
+            return root;
+        } catch (IOException e) {
+            throw new IllegalStateException("字典响应解析失败: " + dictType, e);
+        }
+    }
+
+    private static final class LoadedIndex {
+
+        private final DictIndex index;
+        private final long loadedAtMillis;
+
+        private LoadedIndex(DictIndex index, long loadedAtMillis) {
+            this.index = index;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    private static final class Loaded {
+
+        private final List<String> items = new ArrayList<>();
+        private final List<String> codes = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+        private int pages;
+
+        private DictIndex index(String dictType) {
+            return DictIndex.build(dictType, codes, labels);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.backend.calllog;
+
+import com.example.backend.common.RawJson;
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallLog;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 外部调用日志的采样与响应体采集策略：失败、重试（attempt > 1）以及带 exceptionType 的记录（业务错误、
+ * 熔断状态变更等）总是记录；成功调用按 successSampleRate 采样。
+ * 失败调用记录响应体前缀，成功调用按 successBody 只记指纹或不记。
+ */
+@Component
+public class CallLogPolicy {
+
+    private static final int BUCKETS = 10000;
+
+    private final ThirdPartyProperties properties;
+    private final Counter kept;
+    private final Counter skipped;
+
+    public CallLogPolicy(ThirdPartyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.kept = Counter.builder("calllog.sampled").tag("result", "kept").register(meterRegistry);
+        this.skipped = Counter.builder("calllog.sampled").tag("result", "skipped").register(meterRegistry);
+    }
+
+    public boolean shouldKeep(ExternalCallLog callLog) {
+        boolean keep = callLog.getSuccess() == null || callLog.getSuccess() != 1
+                || callLog.getExceptionType() != null
+                || (callLog.getAttempt() != null && callLog.getAttempt() > 1)
+                || sampled(callLog.getTraceId());
+        (keep ? kept : skipped).increment();
+        return keep;
+    }
+
+    public void captureBody(ExternalCallLog callLog, RawJson body) {
+        if (body == null) {
+            return;
+        }
+        boolean success = callLog.getSuccess() != null && callLog.getSuccess() == 1;
+        ThirdPartyProperties.CallLog.BodyCapture capture = success
+                ? properties.getCallLog().getSuccessBody()
+                : ThirdPartyProperties.CallLog.BodyCapture.PREFIX;
+        if (capture == ThirdPartyProperties.CallLog.BodyCapture.NONE) {
+            return;
+        }
+        callLog.setBodyHash(body.fingerprint());
+        if (capture == ThirdPartyProperties.CallLog.BodyCapture.PREFIX) {
+            callLog.setExceptionMessage(body.prefix(properties.getHttp().getLogBodyLimit()));
+        }
+    }
+
+    boolean sampled(String traceId) {
+        ThirdPartyProperties.CallLog config = properties.getCallLog();
+        double rate = config.getSuccessSampleRate();
+        if (rate >= 1.0) {
+            return true;
+        }
+        if (rate <= 0.0) {
+            return false;
+        }
+        int bucket = config.getSampleBy() == ThirdPartyProperties.CallLog.SampleBy.TRACE_ID && traceId != null
+                ? Math.floorMod(Hashing.murmur3_32_fixed().hashString(traceId, StandardCharsets.UTF_8).asInt(), BUCKETS)
+                : ThreadLocalRandom.current().nextInt(BUCKETS);
+        return bucket < rate * BUCKETS;
+    }
+}
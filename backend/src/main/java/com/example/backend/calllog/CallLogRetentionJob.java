@@ -0,0 +1,195 @@
+package com.example.backend.calllog;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.mapper.ExternalCallLogMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * external_call_log 保留策略。
+ * <p>
+ * 表按天分区（RANGE TO_DAYS(created_at)）时：从 MAXVALUE 分区拆出今天起 precreateDays 天的分区，
+ * 并整块删除上界不晚于截止日的分区，不产生逐行删除。
+ * 未分区（或数据库不支持分区元数据）时：按主键顺序每批删 batchSize 行，批间暂停，单轮批数有上限，
+ * 避免长事务和长时间锁表。
+ */
+@Slf4j
+@Component
+public class CallLogRetentionJob {
+
+    /** MySQL TO_DAYS('1970-01-01') */
+    private static final long TO_DAYS_EPOCH = 719528;
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final Pattern PARTITION_NAME = Pattern.compile("p[_a-z0-9]+");
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final ThirdPartyProperties.CallLog.Retention config;
+    private final ExternalCallLogMapper mapper;
+    private final Counter createdPartitions;
+    private final Counter droppedPartitions;
+    private final Counter deletedRows;
+
+    public CallLogRetentionJob(ThirdPartyProperties properties, ExternalCallLogMapper mapper,
+                               MeterRegistry meterRegistry) {
+        this.config = properties.getCallLog().getRetention();
+        this.mapper = mapper;
+        this.createdPartitions = Counter.builder("calllog.retention.partitions").tag("action", "created")
+                .register(meterRegistry);
+        this.droppedPartitions = Counter.builder("calllog.retention.partitions").tag("action", "dropped")
+                .register(meterRegistry);
+        this.deletedRows = Counter.builder("calllog.retention.deleted").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${third-party.call-log.retention.interval:3600000}",
+            initialDelayString = "${third-party.call-log.retention.initial-delay:60000}")
+    public void run() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        purge(LocalDate.now());
+    }
+
+    /**
+     * 删除 created_at 早于 today - days 的日志。
+     */
+    public void purge(LocalDate today) {
+        LocalDate cutoff = today.minusDays(config.getDays());
+        List<Partition> partitions = partitions();
+        if (partitions.isEmpty()) {
+            deleteInBatches(cutoff);
+            return;
+        }
+        precreate(partitions, today);
+        dropExpired(partitions, cutoff);
+    }
+
+    private List<Partition> partitions() {
+        List<Map<String, Object>> rows;
+        try {
+            rows = mapper.selectPartitions();
+        } catch (Exception e) {
+            log.debug("无法读取分区信息，按未分区处理: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+        List<Partition> partitions = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            String name = String.valueOf(row.get("name"));
+            String bound = String.valueOf(row.get("bound"));
+            partitions.add(new Partition(name, "MAXVALUE".equalsIgnoreCase(bound) ? null : Long.valueOf(bound)));
+        }
+        return partitions;
+    }
+
+    private void precreate(List<Partition> partitions, LocalDate today) {
+        boolean hasFuture = partitions.stream().anyMatch(p -> p.bound == null && FUTURE_PARTITION.equals(p.name));
+        if (!hasFuture) {
+            log.warn("external_call_log 没有 {} 分区，跳过预建分区", FUTURE_PARTITION);
+            return;
+        }
+        long maxBound = partitions.stream().filter(p -> p.bound != null).mapToLong(p -> p.bound).max().orElse(0);
+        for (int i = 0; i <= config.getPrecreateDays(); i++) {
+            LocalDate day = today.plusDays(i);
+            long bound = toDays(day.plusDays(1));
+            if (bound <= maxBound) {
+                continue;
+            }
+            String name = day.format(PARTITION_FORMAT);
+            try {
+                mapper.splitFuturePartition(FUTURE_PARTITION, name, bound);
+                createdPartitions.increment();
+                maxBound = bound;
+                log.info("已创建调用日志分区: {}", name);
+            } catch (Exception e) {
+                log.error("创建调用日志分区失败: {}, error={}", name, e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 上界（不含）不晚于截止日的分区里全是过期数据，整块删除。
+     */
+    private void dropExpired(List<Partition> partitions, LocalDate cutoff) {
+        long cutoffDays = toDays(cutoff);
+        for (Partition partition : partitions) {
+            if (partition.bound == null || partition.bound > cutoffDays) {
+                continue;
+            }
+            if (!PARTITION_NAME.matcher(partition.name).matches()) {
+                log.warn("分区名不符合约定，跳过: {}", partition.name);
+                continue;
+            }
+            try {
+                mapper.dropPartition(partition.name);
+                droppedPartitions.increment();
+                log.info("已删除过期调用日志分区: {}", partition.name);
+            } catch (Exception e) {
+                log.error("删除调用日志分区失败: {}, error={}", partition.name, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void deleteInBatches(LocalDate cutoff) {
+        int batchSize = Math.max(1, config.getBatchSize());
+        long total = 0;
+        for (int i = 0; i < config.getMaxBatchesPerRun(); i++) {
+            List<Long> ids = mapper.selectExpiredIds(cutoff.atStartOfDay(), batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            mapper.deleteBatchIds(ids);
+            deletedRows.increment(ids.size());
+            total += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("已删除过期调用日志 {} 条，截止 {}", total, cutoff);
+        }
+    }
+
+    private boolean pause() {
+        if (config.getBatchPause() <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(config.getBatchPause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static long toDays(LocalDate date) {
+        return date.toEpochDay() + TO_DAYS_EPOCH;
+    }
+
+    private static final class Partition {
+
+        private final String name;
+        /** VALUES LESS THAN 的 TO_DAYS 值，MAXVALUE 为 null */
+        private final Long bound;
+
+        private Partition(String name, Long bound) {
+            this.name = name;
+            this.bound = bound;
+        }
+    }
+}
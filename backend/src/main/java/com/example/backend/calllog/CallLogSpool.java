@@ -0,0 +1,319 @@
+package com.example.backend.calllog;
+
+import com.example.backend.entity.ExternalCallLog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * 外部调用日志本地预写缓冲：数据库不可用时日志追加到内存映射的分段文件，恢复后由后台按批回放入库。
+ * <p>
+ * 每条记录为 [长度][CRC32][JSON]，先写内容再写长度，进程或机器崩溃时半条记录的长度为 0 或 CRC 不符，
+ * 重启扫描时从该处截断。回放进度记录在 checkpoint 文件中（写临时文件后原子替换），
+ * 已全部回放的分段文件随之删除。入库成功后、checkpoint 落盘前崩溃会重复回放，即至少一次。
+ * <p>
+ * 分段总数受 maxBytes 限制，写满后拒绝追加，由调用方计入丢弃。
+ */
+@Slf4j
+public class CallLogSpool implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    private long writeSeq;
+    private int writeOffset;
+    private long readSeq;
+    private int readOffset;
+
+    public CallLogSpool(Path dir, int segmentSize, long maxBytes, boolean fsync) throws IOException {
+        if (segmentSize <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentSize 过小: " + segmentSize);
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxBytes / segmentSize));
+        this.fsync = fsync;
+        open();
+    }
+
+    /**
+     * 依次追加，空间不足或单条超过分段大小时停止。
+     *
+     * @return 成功追加的条数（从头开始连续）
+     */
+    public synchronized int append(List<ExternalCallLog> logs) {
+        int appended = 0;
+        try {
+            for (ExternalCallLog callLog : logs) {
+                byte[] payload = objectMapper.writeValueAsBytes(callLog);
+                int size = HEADER_BYTES + payload.length;
+                if (size > segmentSize) {
+                    log.warn("外部调用日志过大，无法写入本地缓冲: {} 字节", payload.length);
+                    break;
+                }
+                if (writeOffset + size > segmentSize && !roll()) {
+                    break;
+                }
+                MappedByteBuffer buffer = segments.get(writeSeq);
+                ByteBuffer target = buffer.duplicate();
+                target.position(writeOffset + HEADER_BYTES);
+                target.put(payload);
+                buffer.putInt(writeOffset + 4, crc(payload));
+                buffer.putInt(writeOffset, payload.length);
+                writeOffset += size;
+                appended++;
+            }
+        } catch (IOException e) {
+            log.error("写入外部调用日志本地缓冲失败: {}", e.getMessage(), e);
+        }
+        if (appended > 0 && fsync) {
+            segments.get(writeSeq).force();
+        }
+        return appended;
+    }
+
+    /**
+     * 从回放位置起读取至多 max 条；无法解析的记录跳过。返回的位置需在入库成功后交给 {@link #commit(Batch)}。
+     */
+    public synchronized Batch read(int max) {
+        List<ExternalCallLog> logs = new ArrayList<>();
+        long seq = readSeq;
+        int offset = readOffset;
+        while (logs.size() < max) {
+            MappedByteBuffer buffer = segments.get(seq);
+            int limit = seq == writeSeq ? writeOffset : segmentSize;
+            int length = offset + HEADER_BYTES <= limit ? buffer.getInt(offset) : 0;
+            if (length <= 0 || offset + HEADER_BYTES + length > limit) {
+                if (seq == writeSeq) {
+                    break;
+                }
+                seq = segments.higherKey(seq);
+                offset = 0;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset + HEADER_BYTES);
+            source.get(payload);
+            int expected = buffer.getInt(offset + 4);
+            offset += HEADER_BYTES + length;
+            if (crc(payload) != expected) {
+                log.warn("本地缓冲记录校验失败，跳过: segment={}, offset={}", seq, offset - HEADER_BYTES - length);
+                continue;
+            }
+            try {
+                logs.add(objectMapper.readValue(payload, ExternalCallLog.class));
+            } catch (IOException e) {
+                log.warn("本地缓冲记录无法解析，跳过: {}", e.getMessage());
+            }
+        }
+        return new Batch(logs, seq, offset);
+    }
+
+    /**
+     * 推进回放位置并落盘 checkpoint，随后删除已回放完的分段文件。
+     */
+    public synchronized void commit(Batch batch) throws IOException {
+        writeCheckpoint(batch.seq, batch.offset);
+        readSeq = batch.seq;
+        readOffset = batch.offset;
+        Map<Long, MappedByteBuffer> consumed = segments.headMap(readSeq, false);
+        for (Long seq : new ArrayList<>(consumed.keySet())) {
+            consumed.remove(seq);
+            Files.deleteIfExists(segmentPath(seq));
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return readSeq != writeSeq || readOffset != writeOffset;
+    }
+
+    /**
+     * 待回放的字节数（含分段尾部未用满的空间）。
+     */
+    public synchronized long pendingBytes() {
+        return (writeSeq - readSeq) * segmentSize + writeOffset - readOffset;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (MappedByteBuffer buffer : segments.values()) {
+            buffer.force();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Long> existing = listSegments();
+        long[] checkpoint = readCheckpoint();
+        if (checkpoint != null && existing.contains(checkpoint[0])) {
+            readSeq = checkpoint[0];
+            readOffset = (int) checkpoint[1];
+        } else {
+            readSeq = existing.isEmpty() ? 1 : existing.get(0);
+            readOffset = 0;
+        }
+        for (Long seq : existing) {
+            if (seq < readSeq) {
+                Files.deleteIfExists(segmentPath(seq));
+            } else {
+                segments.put(seq, map(seq));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(readSeq, map(readSeq));
+        }
+        writeSeq = segments.lastKey();
+        writeOffset = recover(segments.get(writeSeq));
+        if (writeSeq == readSeq && readOffset > writeOffset) {
+            readOffset = writeOffset;
+        }
+        if (hasPending()) {
+            log.info("外部调用日志本地缓冲待回放: segments={}, bytes={}", segments.size(), pendingBytes());
+        }
+    }
+
+    /**
+     * 扫描到第一条不完整的记录为止，并清空其后的内容，避免残留数据在之后被误认为有效记录。
+     */
+    private int recover(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset + HEADER_BYTES);
+            source.get(payload);
+            if (crc(payload) != buffer.getInt(offset + 4)) {
+                log.warn("本地缓冲分段尾部记录不完整，已截断: offset={}", offset);
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        for (int i = offset; i < segmentSize; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        return offset;
+    }
+
+    private boolean roll() throws IOException {
+        if (segments.size() >= maxSegments) {
+            return false;
+        }
+        segments.get(writeSeq).force();
+        writeSeq++;
+        writeOffset = 0;
+        segments.put(writeSeq, map(writeSeq));
+        return true;
+    }
+
+    private MappedByteBuffer map(long seq) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(seq),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    seqs.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("忽略无法识别的本地缓冲文件: {}", name);
+                }
+            }
+        }
+        Collections.sort(seqs);
+        return seqs;
+    }
+
+    private long[] readCheckpoint() {
+        Path path = dir.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim().split(" ");
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IOException | RuntimeException e) {
+            log.warn("本地缓冲 checkpoint 无法读取，从最早的分段开始回放: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(long seq, int offset) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap((seq + " " + offset).getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path segmentPath(long seq) {
+        return dir.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 一次读取的日志及读完后的位置。
+     */
+    @Getter
+    public static final class Batch {
+
+        private final List<ExternalCallLog> logs;
+        private final long seq;
+        private final int offset;
+
+        Batch(List<ExternalCallLog> logs, long seq, int offset) {
+            this.logs = logs;
+            this.seq = seq;
+            this.offset = offset;
+        }
+    }
+}
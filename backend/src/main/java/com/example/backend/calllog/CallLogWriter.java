@@ -0,0 +1,364 @@
+package com.example.backend.calllog;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.mapper.ExternalCallLogMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 外部调用日志异步批量写入：调用线程只入有界队列，后台单线程攒够 batchSize 条或等满 flushInterval 后
+ * 用一条多行 INSERT 写库。队列满时按 overflowPolicy 丢弃或阻塞；关闭时写完队列中剩余的日志。
+ * <p>
+ * async=false 或已关闭时退化为在调用线程同步写入。
+ * <p>
+ * 启用 spool 时，写库失败或队列溢出的日志落入本地缓冲而不是丢弃。调用线程只把溢出的日志放入有界的
+ * 落盘队列，由独立的 spiller 线程成批追加到缓冲并每批刷盘一次，数据库卡住时请求线程也不会等待磁盘。
+ * 缓冲中有待回放日志期间，新批次也直接进入缓冲，由 {@link #replaySpool()} 探测数据库恢复后统一回放，
+ * 避免每批都等到 JDBC 超时。溢出与回放的日志入库顺序与产生顺序不一致，按 created_at 排序即可。
+ */
+@Slf4j
+@Component
+public class CallLogWriter {
+
+    private static final long WAKEUP_INTERVAL_MS = 100;
+
+    private final ThirdPartyProperties.CallLog config;
+    private final ExternalCallLogMapper mapper;
+    private final BlockingQueue<ExternalCallLog> queue;
+    private final Thread flusher;
+    private final Counter droppedOverflow;
+    private final Counter droppedError;
+    private final Counter written;
+    private final DistributionSummary batchSize;
+    private final CallLogSpool spool;
+    private final Counter droppedSpoolFull;
+    private final Counter spilled;
+    private final Counter replayed;
+    private final BlockingQueue<ExternalCallLog> spillQueue;
+    private final Thread spiller;
+    private volatile boolean running;
+    private volatile boolean spilling;
+
+    public CallLogWriter(ThirdPartyProperties properties, ExternalCallLogMapper mapper, MeterRegistry meterRegistry) {
+        this.config = properties.getCallLog();
+        this.mapper = mapper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        this.droppedOverflow = Counter.builder("calllog.dropped").tag("reason", "overflow").register(meterRegistry);
+        this.droppedError = Counter.builder("calllog.dropped").tag("reason", "error").register(meterRegistry);
+        this.written = Counter.builder("calllog.written").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("calllog.batch.size").register(meterRegistry);
+        Gauge.builder("calllog.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.spool = openSpool(config.getSpool());
+        this.droppedSpoolFull = Counter.builder("calllog.dropped").tag("reason", "spool_full").register(meterRegistry);
+        this.spilled = Counter.builder("calllog.spool.spilled").register(meterRegistry);
+        this.replayed = Counter.builder("calllog.spool.replayed").register(meterRegistry);
+        this.spillQueue = new ArrayBlockingQueue<>(Math.max(1, config.getSpool().getQueueCapacity()));
+        this.spiller = new ThreadFactoryBuilder().setNameFormat("call-log-spiller-%d").setDaemon(true).build()
+                .newThread(this::runSpiller);
+        if (spool != null) {
+            Gauge.builder("calllog.spool.bytes", spool, CallLogSpool::pendingBytes).register(meterRegistry);
+            Gauge.builder("calllog.spill.queue.size", spillQueue, BlockingQueue::size).register(meterRegistry);
+            spilling = true;
+            spiller.start();
+        }
+
+        this.running = config.isAsync();
+        this.flusher = new ThreadFactoryBuilder().setNameFormat("call-log-writer-%d").setDaemon(true).build()
+                .newThread(this::runFlusher);
+        if (running) {
+            flusher.start();
+        }
+    }
+
+    public void write(ExternalCallLog callLog) {
+        if (!running) {
+            insert(callLog);
+            return;
+        }
+        switch (config.getOverflowPolicy()) {
+            case DROP_NEW:
+                if (!queue.offer(callLog)) {
+                    overflow(callLog);
+                }
+                break;
+            case BLOCK:
+                offerBlocking(callLog);
+                break;
+            case DROP_OLDEST:
+            default:
+                while (!queue.offer(callLog)) {
+                    ExternalCallLog oldest = queue.poll();
+                    if (oldest != null) {
+                        overflow(oldest);
+                    }
+                }
+                break;
+        }
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private void offerBlocking(ExternalCallLog callLog) {
+        try {
+            if (!queue.offer(callLog, config.getBlockTimeout(), TimeUnit.MILLISECONDS)) {
+                overflow(callLog);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            overflow(callLog);
+        }
+    }
+
+    private void overflow(ExternalCallLog callLog) {
+        if (spool != null) {
+            spill(Collections.singletonList(callLog));
+        } else {
+            droppedOverflow.increment();
+        }
+    }
+
+    private void runFlusher() {
+        List<ExternalCallLog> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            boolean interrupted = false;
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+            if (interrupted) {
+                log.warn("外部调用日志写入线程被中断，剩余 {} 条未写入", queue.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取第一条后开始计时，攒满 batchSize 或到达 flushInterval 即返回。
+     * 每次至多等待 WAKEUP_INTERVAL_MS，以便关闭时尽快发现并写出剩余日志。
+     */
+    private void collect(List<ExternalCallLog> batch) throws InterruptedException {
+        ExternalCallLog first = queue.poll(Math.min(config.getFlushInterval(), WAKEUP_INTERVAL_MS), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval());
+        int max = Math.max(1, config.getBatchSize());
+        while (batch.size() < max) {
+            queue.drainTo(batch, max - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= max || remaining <= 0 || !running) {
+                return;
+            }
+            ExternalCallLog next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(WAKEUP_INTERVAL_MS)),
+                    TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<ExternalCallLog> batch) {
+        batchSize.record(batch.size());
+        if (spool != null && spool.hasPending()) {
+            spill(batch);
+            return;
+        }
+        try {
+            mapper.insertBatch(batch);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            if (spool != null) {
+                log.error("批量保存外部调用日志失败，{} 条写入本地缓冲: {}", batch.size(), e.getMessage());
+                spill(batch);
+                return;
+            }
+            log.error("批量保存外部调用日志失败，丢弃 {} 条: {}", batch.size(), e.getMessage(), e);
+            droppedError.increment(batch.size());
+        }
+    }
+
+    private void insert(ExternalCallLog callLog) {
+        try {
+            mapper.insert(callLog);
+            written.increment();
+        } catch (Exception e) {
+            if (spool != null) {
+                log.error("保存外部调用日志失败，写入本地缓冲: {}", e.getMessage());
+                spill(Collections.singletonList(callLog));
+                return;
+            }
+            log.error("保存外部调用日志失败: {}", e.getMessage(), e);
+            droppedError.increment();
+        }
+    }
+
+    /**
+     * 交给 spiller 线程写入本地缓冲；落盘队列也满时丢弃。spiller 已停止（关闭过程中）时直接写入。
+     */
+    private void spill(List<ExternalCallLog> logs) {
+        if (!spilling) {
+            appendToSpool(logs);
+            return;
+        }
+        for (ExternalCallLog callLog : logs) {
+            if (!spillQueue.offer(callLog)) {
+                droppedOverflow.increment();
+            }
+        }
+    }
+
+    private void runSpiller() {
+        int max = Math.max(1, config.getBatchSize());
+        List<ExternalCallLog> batch = new ArrayList<>(max);
+        while (spilling || !spillQueue.isEmpty()) {
+            try {
+                ExternalCallLog first = spillQueue.poll(WAKEUP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                log.warn("外部调用日志落盘线程被中断，剩余 {} 条未写入", spillQueue.size());
+                return;
+            }
+            spillQueue.drainTo(batch, max - 1);
+            appendToSpool(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 一批只刷盘一次。
+     */
+    private void appendToSpool(List<ExternalCallLog> logs) {
+        int appended = spool.append(logs);
+        spilled.increment(appended);
+        if (appended < logs.size()) {
+            log.warn("外部调用日志本地缓冲已满，丢弃 {} 条", logs.size() - appended);
+            droppedSpoolFull.increment(logs.size() - appended);
+        }
+    }
+
+    /**
+     * 按批回放本地缓冲，直到回放完、达到单轮批数上限或写库失败；失败时保留进度，下次再试。
+     */
+    @Scheduled(fixedDelayString = "${third-party.call-log.spool.replay-interval:5000}")
+    public void replaySpool() {
+        if (spool == null) {
+            return;
+        }
+        int max = Math.max(1, config.getSpool().getReplayBatchSize());
+        for (int i = 0; i < config.getSpool().getReplayMaxBatches() && spool.hasPending(); i++) {
+            CallLogSpool.Batch batch = spool.read(max);
+            try {
+                if (!batch.getLogs().isEmpty()) {
+                    mapper.insertBatch(batch.getLogs());
+                }
+            } catch (Exception e) {
+                log.warn("回放外部调用日志本地缓冲失败，稍后重试: {}", e.getMessage());
+                return;
+            }
+            try {
+                spool.commit(batch);
+            } catch (IOException e) {
+                log.error("保存外部调用日志本地缓冲 checkpoint 失败: {}", e.getMessage(), e);
+                return;
+            }
+            written.increment(batch.getLogs().size());
+            replayed.increment(batch.getLogs().size());
+        }
+    }
+
+    private static CallLogSpool openSpool(ThirdPartyProperties.CallLog.Spool spoolConfig) {
+        if (!spoolConfig.isEnabled()) {
+            return null;
+        }
+        Path dir = Paths.get(spoolConfig.getDir());
+        if (!dir.isAbsolute()) {
+            log.warn("外部调用日志本地缓冲目录为相对路径，实际位置取决于启动目录: {}", dir.toAbsolutePath());
+        }
+        try {
+            return new CallLogSpool(dir, spoolConfig.getSegmentSize(),
+                    spoolConfig.getMaxBytes(), spoolConfig.isFsync());
+        } catch (IOException | RuntimeException e) {
+            log.error("外部调用日志本地缓冲不可用，写库失败的日志将被丢弃: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 停止接收新日志（之后同步写入），等待后台线程写完队列中剩余的日志。
+     * 不中断后台线程，避免打断进行中的 JDBC 调用；它最多在 100ms 后发现已停止。
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            stopFlusher();
+        } finally {
+            if (spool != null) {
+                stopSpiller();
+                spool.close();
+            }
+        }
+    }
+
+    private void stopSpiller() {
+        spilling = false;
+        try {
+            spiller.join(config.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (spiller.isAlive()) {
+            log.warn("外部调用日志落盘线程未能在 {}ms 内结束，剩余 {} 条", config.getShutdownTimeout(), spillQueue.size());
+        }
+    }
+
+    private void stopFlusher() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(config.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.warn("外部调用日志未能在 {}ms 内写完，剩余 {} 条", config.getShutdownTimeout(), queue.size());
+            return;
+        }
+        // 停止前最后一刻入队的日志
+        List<ExternalCallLog> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.backend.calllog;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallStats;
+import com.example.backend.mapper.ExternalCallStatsMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.zip.DataFormatException;
+
+/**
+ * 上游调用的分钟级汇总：按 (分钟, 服务, HTTP 状态码) 累计次数、失败数与耗时直方图，
+ * 分钟结束后写入 external_call_stats，每个 key 一行。直方图以 HdrHistogram 压缩编码保存，查询时可跨行合并。
+ * <p>
+ * 分钟结束后再等一分钟才写入，让在分钟边界前取到桶、稍后才累加的记录赶上，避免写入后再累加的数据丢失。
+ * 同一 key 可能因重启或迟到的记录产生多行，行之间是可累加的，查询时合并即可。
+ */
+@Slf4j
+@Component
+public class CallStatsAggregator {
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final ThirdPartyProperties.CallLog.Stats config;
+    private final ExternalCallStatsMapper mapper;
+    private final LongSupplier clock;
+    private final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Counter flushedRows;
+
+    @Autowired
+    public CallStatsAggregator(ThirdPartyProperties properties, ExternalCallStatsMapper mapper,
+                               MeterRegistry meterRegistry) {
+        this(properties.getCallLog().getStats(), mapper, meterRegistry, System::currentTimeMillis);
+    }
+
+    CallStatsAggregator(ThirdPartyProperties.CallLog.Stats config, ExternalCallStatsMapper mapper,
+                        MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.mapper = mapper;
+        this.clock = clock;
+        this.flushedRows = Counter.builder("calllog.stats.rows").register(meterRegistry);
+        Gauge.builder("calllog.stats.buckets", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @param httpStatus 上游状态码，无响应（超时、IO 异常）时为 0
+     */
+    public void record(String service, int httpStatus, boolean success, long durationMs) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long minute = clock.getAsLong() / MINUTE_MILLIS * MINUTE_MILLIS;
+        Bucket bucket = buckets.computeIfAbsent(new Key(minute, service, httpStatus), k -> new Bucket(config.getMaxLatency()));
+        bucket.count.increment();
+        if (!success) {
+            bucket.errors.increment();
+        }
+        long latency = Math.min(Math.max(0, durationMs), config.getMaxLatency());
+        bucket.totalMs.add(latency);
+        bucket.histogram.recordValue(latency);
+    }
+
+    /**
+     * 写入上一分钟之前的分钟；当前分钟与上一分钟继续累计。
+     */
+    @Scheduled(fixedDelayString = "${third-party.call-log.stats.flush-interval:10000}")
+    public void flushCompleted() {
+        flush(clock.getAsLong() / MINUTE_MILLIS * MINUTE_MILLIS - MINUTE_MILLIS);
+    }
+
+    /**
+     * 关闭时连同未结束的分钟一起写入。
+     */
+    @PreDestroy
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flush(long beforeMinute) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Key key : buckets.keySet()) {
+            if (key.minute >= beforeMinute) {
+                continue;
+            }
+            Bucket bucket = buckets.remove(key);
+            if (bucket == null) {
+                continue;
+            }
+            try {
+                mapper.insert(toRow(key, bucket, now));
+                flushedRows.increment();
+            } catch (Exception e) {
+                log.error("保存调用统计失败: minute={}, service={}, status={}, error={}",
+                        key.minute, key.service, key.httpStatus, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static ExternalCallStats toRow(Key key, Bucket bucket, LocalDateTime createdAt) {
+        Histogram histogram = bucket.histogram;
+        ExternalCallStats row = new ExternalCallStats();
+        row.setMinuteStart(LocalDateTime.ofInstant(Instant.ofEpochMilli(key.minute), ZONE));
+        row.setService(key.service);
+        row.setHttpStatus(key.httpStatus);
+        row.setCallCount(bucket.count.sum());
+        row.setErrorCount(bucket.errors.sum());
+        row.setTotalMs(bucket.totalMs.sum());
+        row.setMaxMs(histogram.getMaxValue());
+        row.setP50Ms(histogram.getValueAtPercentile(50));
+        row.setP95Ms(histogram.getValueAtPercentile(95));
+        row.setP99Ms(histogram.getValueAtPercentile(99));
+        row.setHistogram(encode(histogram));
+        row.setCreatedAt(createdAt);
+        return row;
+    }
+
+    public static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    public static Histogram decode(byte[] bytes) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("无法解析耗时直方图", e);
+        }
+    }
+
+    @EqualsAndHashCode
+    private static final class Key {
+
+        private final long minute;
+        private final String service;
+        private final int httpStatus;
+
+        private Key(long minute, String service, int httpStatus) {
+            this.minute = minute;
+            this.service = service;
+            this.httpStatus = httpStatus;
+        }
+    }
+
+    private static final class Bucket {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalMs = new LongAdder();
+        private final Histogram histogram;
+
+        private Bucket(long maxLatency) {
+            this.histogram = new ConcurrentHistogram(1, Math.max(2, maxLatency), SIGNIFICANT_DIGITS);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.backend.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 原样透传的 JSON 片段（UTF-8 字节）。序列化时直接写入输出缓冲区，不解码成 String，也不做转义。
+ * <p>
+ * 字节数组不做防御性拷贝，创建后不得修改。
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+public final class RawJson {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final byte[] utf8;
+    private volatile String fingerprint;
+
+    private RawJson(byte[] utf8) {
+        this.utf8 = utf8;
+    }
+
+    public static RawJson wrap(byte[] utf8) {
+        return new RawJson(utf8);
+    }
+
+    public static RawJson of(String json) {
+        return json == null ? null : new RawJson(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int length() {
+        return utf8.length;
+    }
+
+    /**
+     * 只解码前 maxBytes 个字节，用于日志；截断处的半个多字节字符会被替换。
+     */
+    public String prefix(int maxBytes) {
+        return new String(utf8, 0, Math.min(utf8.length, Math.max(0, maxBytes)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 内容指纹：128 位哈希的十六进制，字节相同则相同。首次调用时计算并缓存，缓存中的同一份响应只算一次。
+     */
+    public String fingerprint() {
+        String value = fingerprint;
+        if (value == null) {
+            value = Hashing.murmur3_128().hashBytes(utf8).toString();
+            fingerprint = value;
+        }
+        return value;
+    }
+
+    /**
+     * 强 ETag，即加引号的指纹。
+     */
+    public String etag() {
+        return "\"" + fingerprint() + "\"";
+    }
+
+    /**
+     * 上游以 HTTP 200 返回的业务错误：顶层 success 字段为 false。只扫描顶层字段，不构建树；
+     * 无该字段或不是合法 JSON 时返回 false。
+     */
+    public boolean isBusinessFailure() {
+        try (JsonParser parser = JSON_FACTORY.createParser(utf8)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("success".equals(field)) {
+                    return value == JsonToken.VALUE_FALSE;
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(utf8);
+    }
+
+    @Override
+    public String toString() {
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof RawJson && Arrays.equals(utf8, ((RawJson) o).utf8));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(utf8);
+    }
+
+    static final class Serializer extends StdSerializer<RawJson> {
+
+        Serializer() {
+            super(RawJson.class);
+        }
+
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(new Utf8Value(value));
+        }
+    }
+
+    /**
+     * UTF-8 生成器走 appendUnquotedUTF8 / asUnquotedUTF8 直接拷贝字节；加引号的变体不会被用到，按 String 兜底。
+     */
+    private static final class Utf8Value implements SerializableString {
+
+        private final RawJson json;
+
+        private Utf8Value(RawJson json) {
+            this.json = json;
+        }
+
+        private SerializedString quoted() {
+            return new SerializedString(getValue());
+        }
+
+        @Override
+        public String getValue() {
+            return json.toString();
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return quoted().asQuotedChars();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return json.utf8;
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return quoted().asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return quoted().appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return quoted().appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            byte[] bytes = json.utf8;
+            if (offset + bytes.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+            return bytes.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String value = getValue();
+            if (offset + value.length() > buffer.length) {
+                return -1;
+            }
+            value.getChars(0, value.length(), buffer, offset);
+            return value.length();
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return quoted().writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            json.writeTo(out);
+            return json.utf8.length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return quoted().putQuotedUTF8(buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+            byte[] bytes = json.utf8;
+            if (bytes.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(bytes);
+            return bytes.length;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.backend.config;
+
+import com.google.common.io.ByteStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 非 2xx 响应按 Content-Encoding 解压后再放进 HttpStatusCodeException，
+ * 避免异常信息与调用日志里出现压缩后的二进制内容。解压后最多保留 maxBytes，无法解压时不带响应体。
+ */
+@Slf4j
+public class DecodingResponseErrorHandler extends DefaultResponseErrorHandler {
+
+    private static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+    private final int maxBytes;
+
+    public DecodingResponseErrorHandler() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public DecodingResponseErrorHandler(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    protected byte[] getResponseBody(ClientHttpResponse response) {
+        byte[] body = super.getResponseBody(response);
+        String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (body.length == 0 || encoding == null || "identity".equalsIgnoreCase(encoding.trim())) {
+            return body;
+        }
+        String normalized = encoding.trim().toLowerCase();
+        try (InputStream in = decoding(new ByteArrayInputStream(body), normalized)) {
+            if (in == null) {
+                log.debug("不支持的错误响应编码，忽略响应体: {}", encoding);
+                return new byte[0];
+            }
+            return ByteStreams.toByteArray(ByteStreams.limit(in, maxBytes));
+        } catch (IOException e) {
+            log.debug("错误响应体解压失败，忽略响应体: {}", e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    private static InputStream decoding(InputStream in, String encoding) throws IOException {
+        if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+            return new GZIPInputStream(in);
+        }
+        if ("deflate".equals(encoding)) {
+            return new InflaterInputStream(in);
+        }
+        return null;
+    }
+}
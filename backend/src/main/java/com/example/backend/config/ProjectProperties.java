@@ -0,0 +1,28 @@
+package com.example.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "project")
+public class ProjectProperties {
+
+    private Count count = new Count();
+
+    /**
+     * 项目列表总数统计
+     */
+    @Data
+    public static class Count {
+        /** 近似总数缓存超过该时间后在后台重新统计，统计完成前仍返回旧值 */
+        private long refreshInterval = 30000;
+        /** 超过该时间未被访问的关键字缓存淘汰 */
+        private long expireAfterAccess = 600000;
+        private int maxKeys = 1000;
+        /** 精确总数与数据并发查询、近似总数后台刷新所用的线程数 */
+        private int poolSize = 4;
+        private int queueCapacity = 100;
+    }
+}
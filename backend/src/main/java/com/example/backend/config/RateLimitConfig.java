@@ -1,6 +1,7 @@
 package com.example.backend.config;
 
-import com.google.common.util.concurrent.RateLimiter;
+import com.example.backend.ratelimit.KeyedRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,7 +15,7 @@ public class RateLimitConfig {
     }
 
     @Bean
-    public RateLimiter rateLimitBucket() {
-        return RateLimiter.create(properties.getRateLimit().getRefillTokens());
+    public KeyedRateLimiter rateLimitBucket(MeterRegistry meterRegistry) {
+        return new KeyedRateLimiter(properties.getRateLimit(), meterRegistry);
     }
 }
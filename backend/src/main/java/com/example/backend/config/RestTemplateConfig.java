@@ -1,12 +1,25 @@
 package com.example.backend.config;
 
+import com.example.backend.resilience.AbortHandle;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.backoff.ExponentialBackOffPolicy;
-import org.springframework.retry.policy.SimpleRetryPolicy;
-import org.springframework.retry.support.RetryTemplate;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class RestTemplateConfig {
 
@@ -16,29 +29,87 @@ public class RestTemplateConfig {
         this.properties = properties;
     }
 
+    /**
+     * 连接池管理器：按路由限制最大连接数，连接存活超过 timeToLive 后不再复用。
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory =
-            new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(properties.getHttp().getConnectionTimeout());
-        factory.setReadTimeout(properties.getHttp().getReadTimeout());
-
-        RestTemplate restTemplate = new RestTemplate(factory);
+    @ConditionalOnProperty(prefix = "third-party.http.pool", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public PoolingHttpClientConnectionManager thirdPartyConnectionManager(MeterRegistry meterRegistry) {
+        ThirdPartyProperties.Http.Pool pool = properties.getHttp().getPool();
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(pool.getTimeToLive(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(pool.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(pool.getValidateAfterInactivity());
 
-        RetryTemplate retryTemplate = new RetryTemplate();
+        Gauge.builder("thirdparty.http.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("已借出的连接数")
+                .register(meterRegistry);
+        Gauge.builder("thirdparty.http.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .description("等待获取连接的请求数")
+                .register(meterRegistry);
+        Gauge.builder("thirdparty.http.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .description("空闲可复用的连接数")
+                .register(meterRegistry);
+        Gauge.builder("thirdparty.http.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .description("连接池最大连接数")
+                .register(meterRegistry);
+        return connectionManager;
+    }
 
-        ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
-        backOffPolicy.setInitialInterval(properties.getHttp().getRetry().getInitialDelay());
-        backOffPolicy.setMultiplier(properties.getHttp().getRetry().getMultiplier());
-        backOffPolicy.setMaxInterval(properties.getHttp().getRetry().getMaxDelay());
-        retryTemplate.setBackOffPolicy(backOffPolicy);
+    /**
+     * 池化 HttpClient：后台线程定期清理空闲/过期连接；重试由业务层控制，这里关闭自带重试。
+     * 响应解压也由业务层处理（以便统计传输字节数），关闭自带的 Accept-Encoding 与解压。
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "third-party.http.pool", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CloseableHttpClient thirdPartyHttpClient(PoolingHttpClientConnectionManager thirdPartyConnectionManager) {
+        ThirdPartyProperties.Http http = properties.getHttp();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(http.getConnectionTimeout())
+                .setSocketTimeout(http.getReadTimeout())
+                .setConnectionRequestTimeout(http.getPool().getConnectionRequestTimeout())
+                .build();
 
-        SimpleRetryPolicy retryPolicy = new SimpleRetryPolicy();
-        retryPolicy.setMaxAttempts(properties.getHttp().getRetry().getMaxAttempts());
-        retryTemplate.setRetryPolicy(retryPolicy);
+        return HttpClients.custom()
+                .setConnectionManager(thirdPartyConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(http.getPool().getIdleEvictTimeout(), TimeUnit.MILLISECONDS)
+                .disableAutomaticRetries()
+                .disableContentCompression()
+                .build();
+    }
 
-        restTemplate.setRequestFactory(factory);
+    @Bean
+    public RestTemplate restTemplate(ObjectProvider<CloseableHttpClient> thirdPartyHttpClient) {
+        CloseableHttpClient httpClient = thirdPartyHttpClient.getIfAvailable();
+        ClientHttpRequestFactory factory = httpClient != null
+                ? abortableRequestFactory(httpClient)
+                : simpleRequestFactory();
 
+        RestTemplate restTemplate = new RestTemplate(factory);
+        restTemplate.setErrorHandler(new DecodingResponseErrorHandler());
         return restTemplate;
     }
+
+    /**
+     * 创建请求后绑定到当前线程的 AbortHandle，对冲请求落败时可直接中止底层连接。
+     */
+    private ClientHttpRequestFactory abortableRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient) {
+            @Override
+            protected void postProcessHttpRequest(HttpUriRequest request) {
+                AbortHandle.bindCurrent(request);
+            }
+        };
+    }
+
+    private ClientHttpRequestFactory simpleRequestFactory() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(properties.getHttp().getConnectionTimeout());
+        factory.setReadTimeout(properties.getHttp().getReadTimeout());
+        return factory;
+    }
 }
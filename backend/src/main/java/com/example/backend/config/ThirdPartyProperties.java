@@ -4,6 +4,12 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "third-party")
@@ -14,12 +20,25 @@ public class ThirdPartyProperties {
     private String appSecret;
     private Http http = new Http();
     private RateLimit rateLimit = new RateLimit();
+    private Cache cache = new Cache();
+    private Snapshot snapshot = new Snapshot();
+    private Async async = new Async();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Hedging hedging = new Hedging();
+    private Batch batch = new Batch();
+    private Concurrency concurrency = new Concurrency();
+    private Index index = new Index();
+    private CallLog callLog = new CallLog();
 
     @Data
     public static class Http {
         private int connectionTimeout = 5000;
         private int readTimeout = 10000;
+        private int logBodyLimit = 500;
+        /** 是否向上游声明 Accept-Encoding: gzip, deflate */
+        private boolean compression = true;
         private Retry retry = new Retry();
+        private Pool pool = new Pool();
 
         @Data
         public static class Retry {
@@ -27,6 +46,34 @@ public class ThirdPartyProperties {
             private long initialDelay = 1000;
             private double multiplier = 2.0;
             private long maxDelay = 10000;
+            private Jitter jitter = Jitter.FULL;
+            private List<String> retryOn = new ArrayList<>(Arrays.asList("5xx", "408", "429"));
+            private Budget budget = new Budget();
+
+            public enum Jitter {
+                NONE,
+                FULL,
+                DECORRELATED
+            }
+
+            @Data
+            public static class Budget {
+                private boolean enabled = true;
+                private double ratio = 0.1;
+                private int maxTokens = 10;
+                private int minRetriesPerSecond = 5;
+            }
+        }
+
+        @Data
+        public static class Pool {
+            private boolean enabled = true;
+            private int maxTotal = 50;
+            private int maxPerRoute = 20;
+            private int connectionRequestTimeout = 1000;
+            private long timeToLive = 60000;
+            private long idleEvictTimeout = 30000;
+            private int validateAfterInactivity = 2000;
         }
     }
 
@@ -35,5 +82,213 @@ public class ThirdPartyProperties {
         private int capacity = 10;
         private int refillTokens = 10;
         private int refillDurationSeconds = 1;
+        private PerKey perKey = new PerKey();
+
+        @Data
+        public static class PerKey {
+            private boolean enabled = true;
+            private int capacity = 5;
+            private int refillTokens = 5;
+            private int refillDurationSeconds = 1;
+            private int maxKeys = 10000;
+            private long idleEvict = 600000;
+            /**
+             * 按 X-Caller-Id 请求头区分调用方；只在网关会校验或覆盖该请求头时开启，
+             * 否则调用方可轮换请求头绕过限流，默认按客户端地址区分
+             */
+            private boolean trustCallerHeader = false;
+        }
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long defaultTtl = 300000;
+        private Map<String, Long> dictTtl = new HashMap<>();
+        private int maxEntries = 10000;
+        private long maxBytes = 64L * 1024 * 1024;
+        private Refresh refresh = new Refresh();
+
+        @Data
+        public static class Refresh {
+            private boolean enabled = true;
+            private long interval = 1000;
+            private double aheadRatio = 0.8;
+            private int hotThreshold = 3;
+            private int maxPerRun = 2;
+            /** 全局令牌至少保留该比例给前台请求，余量不足时跳过本轮刷新 */
+            private double reservedRatio = 0.5;
+            private long staleWhileRevalidate = 60000;
+            private long staleIfError = 300000;
+        }
+    }
+
+    @Data
+    public static class Snapshot {
+        private boolean enabled = false;
+        private List<String> dictTypes = new ArrayList<>();
+        private long refreshInterval = 300000;
+        private int pageSize = 100;
+        private int maxItems = 20000;
+        private long acquireTimeout = 1000;
+    }
+
+    @Data
+    public static class Async {
+        private int corePoolSize = 8;
+        private int maxPoolSize = 32;
+        private int queueCapacity = 200;
+        private long keepAlive = 60000;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private long slowCallDuration = 3000;
+        private int slowCallRateThreshold = 80;
+        private long waitDurationInOpen = 10000;
+        private int permittedCallsInHalfOpen = 3;
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        private double percentile = 95;
+        private int windowSize = 128;
+        private int minSamples = 20;
+        private long minDelay = 50;
+        private long maxDelay = 2000;
+        private double maxPerSecond = 1.0;
+    }
+
+    @Data
+    public static class Batch {
+        private int maxConcurrency = 4;
+        private long permitTimeout = 1000;
+    }
+
+    @Data
+    public static class Concurrency {
+        private boolean enabled = true;
+        private int initialLimit = 10;
+        private int minLimit = 2;
+        private int maxLimit = 100;
+        private double backoffRatio = 0.9;
+        private double tolerance = 2.0;
+        private int rttResetSamples = 1000;
+        private int queueSize = 20;
+        private long queueTimeout = 200;
+    }
+
+    @Data
+    public static class Index {
+        private boolean enabled = true;
+        private String codeField = "code";
+        private String labelField = "value";
+        private long ttl = 600000;
+        /** 索引加载超过该时间后，下次访问在后台重新加载，加载完成前仍返回旧索引 */
+        private long refreshAfter = 300000;
+        /** 一次翻译请求等待未加载索引的总时长，超时的 dictType 计入失败，加载在后台继续 */
+        private long loadTimeout = 2000;
+        /** 后台加载索引的线程数及排队上限 */
+        private int loaderPoolSize = 2;
+        private int loaderQueueCapacity = 50;
+        private int maxDictTypes = 200;
+        private int maxCodesPerRequest = 1000;
+    }
+
+    @Data
+    public static class CallLog {
+        /** false 时在调用线程同步写库 */
+        private boolean async = true;
+        private int queueCapacity = 10000;
+        private int batchSize = 200;
+        private long flushInterval = 1000;
+        /** 队列满时：DROP_OLDEST 丢最旧、DROP_NEW 丢新来的、BLOCK 阻塞至多 blockTimeout 后丢弃 */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        private long blockTimeout = 100;
+        private long shutdownTimeout = 5000;
+        /** 成功调用的采样率（0~1）；失败与重试总是记录 */
+        private double successSampleRate = 1.0;
+        private SampleBy sampleBy = SampleBy.TRACE_ID;
+        /** 成功调用的响应体：NONE 不记录、HASH 只记指纹、PREFIX 记前 logBodyLimit 字节 */
+        private BodyCapture successBody = BodyCapture.HASH;
+        private Stats stats = new Stats();
+        private Retention retention = new Retention();
+        private Spool spool = new Spool();
+
+        /**
+         * 按分钟汇总的调用统计
+         */
+        @Data
+        public static class Stats {
+            private boolean enabled = true;
+            /** 检查并落库已结束分钟的间隔 */
+            private long flushInterval = 10000;
+            /** 直方图可记录的最大耗时，超出按该值记录 */
+            private long maxLatency = 600000;
+            /** 单次查询最多返回的分钟数 */
+            private int maxQueryMinutes = 1440;
+        }
+
+        /**
+         * 日志保留：分区表按天删分区并预建后续分区；未分区时按主键小批量删除
+         */
+        @Data
+        public static class Retention {
+            private boolean enabled = true;
+            private int days = 30;
+            private long interval = 3600000;
+            private long initialDelay = 60000;
+            /** 预建今天及之后几天的分区 */
+            private int precreateDays = 3;
+            private int batchSize = 5000;
+            /** 两批删除之间的间隔，给复制与 purge 线程留出余量 */
+            private long batchPause = 100;
+            private int maxBatchesPerRun = 200;
+        }
+
+        /**
+         * 写库失败或队列满时的本地落盘缓冲，数据库恢复后按批回放
+         */
+        @Data
+        public static class Spool {
+            private boolean enabled = false;
+            private String dir = "data/call-log-spool";
+            /** 单个内存映射分段文件的字节数 */
+            private int segmentSize = 16777216;
+            /** 分段文件总字节数上限，写满后新日志丢弃 */
+            private long maxBytes = 536870912;
+            /** 每次追加后把映射页刷到磁盘 */
+            private boolean fsync = true;
+            /** 等待后台写入缓冲的日志条数上限，超出时丢弃 */
+            private int queueCapacity = 10000;
+            private long replayInterval = 5000;
+            private int replayBatchSize = 500;
+            /** 单轮回放的批数上限，剩余部分留到下一轮，避免长时间占用调度线程 */
+            private int replayMaxBatches = 100;
+        }
+
+        public enum SampleBy {
+            /** 每条独立随机 */
+            RANDOM,
+            /** 按 traceId 哈希，同一链路要么全记要么全不记 */
+            TRACE_ID
+        }
+
+        public enum BodyCapture {
+            NONE,
+            HASH,
+            PREFIX
+        }
+
+        public enum OverflowPolicy {
+            DROP_OLDEST,
+            DROP_NEW,
+            BLOCK
+        }
     }
 }
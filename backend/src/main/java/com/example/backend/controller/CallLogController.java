@@ -0,0 +1,31 @@
+package com.example.backend.controller;
+
+import com.example.backend.common.Result;
+import com.example.backend.dto.CallLogQueryDTO;
+import com.example.backend.service.ExternalCallLogService;
+import com.example.backend.vo.CallLogVO;
+import com.example.backend.vo.PageVO;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/call-logs")
+public class CallLogController {
+
+    private final ExternalCallLogService externalCallLogService;
+
+    public CallLogController(ExternalCallLogService externalCallLogService) {
+        this.externalCallLogService = externalCallLogService;
+    }
+
+    /**
+     * 外部调用日志查询，按时间倒序。翻页时把上一页的 nextCursor 作为 cursor 传回。
+     */
+    @GetMapping
+    public Result<PageVO<CallLogVO>> query(@ModelAttribute @Validated CallLogQueryDTO query) {
+        return Result.success(externalCallLogService.query(query));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.backend.controller;
+
+import com.example.backend.common.Result;
+import com.example.backend.service.CallStatsService;
+import com.example.backend.vo.CallStatsVO;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+public class CallStatsController {
+
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private final CallStatsService callStatsService;
+
+    public CallStatsController(CallStatsService callStatsService) {
+        this.callStatsService = callStatsService;
+    }
+
+    /**
+     * 上游调用分钟汇总，默认最近 60 分钟。数据在分钟结束后才落库，最新一分钟会有延迟。
+     */
+    @GetMapping("/calls")
+    public Result<List<CallStatsVO>> calls(@RequestParam(required = false) String service,
+                                           @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusMinutes(60);
+        return Result.success(callStatsService.query(service, start, end));
+    }
+}
@@ -1,40 +1,216 @@
 package com.example.backend.controller;
 
+import com.example.backend.common.RawJson;
 import com.example.backend.common.Result;
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.dto.DictBatchQueryRequestDTO;
 import com.example.backend.dto.DictQueryRequestDTO;
+import com.example.backend.dto.DictTranslateRequestDTO;
 import com.example.backend.service.DictQueryService;
+import com.example.backend.vo.DictBatchItemVO;
+import com.example.backend.vo.DictTranslateVO;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/dict")
 public class DictQueryController {
 
+    private static final String CALLER_HEADER = "X-Caller-Id";
+
     private final DictQueryService dictQueryService;
+    private final ThirdPartyProperties properties;
+    private final MeterRegistry meterRegistry;
 
-    public DictQueryController(DictQueryService dictQueryService) {
+    public DictQueryController(DictQueryService dictQueryService, ThirdPartyProperties properties,
+                               MeterRegistry meterRegistry) {
         this.dictQueryService = dictQueryService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
     }
 
+    /**
+     * 响应带强 ETag；请求的 If-None-Match 命中时返回 304，不带响应体。
+     */
     @GetMapping("/query")
-    public Result<String> query(@Valid DictQueryRequestDTO request,
-                                  @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
+    public ResponseEntity<Result<String>> query(@Valid DictQueryRequestDTO request,
+                                                @RequestHeader(value = "X-Trace-Id", required = false) String traceId,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                HttpServletRequest servletRequest,
+                                                HttpServletResponse servletResponse) {
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+        }
+        String caller = resolveCaller(servletRequest);
+
+        MDC.put("traceId", traceId);
+        MDC.put("caller", caller);
+        try {
+            RawJson body = dictQueryService.queryRaw(request, traceId);
+            return conditional(ifNoneMatch, body, RawJson::toString);
+        } finally {
+            setRateLimitHeaders(servletResponse, caller, request.getDictType());
+            MDC.remove("traceId");
+            MDC.remove("caller");
+        }
+    }
+
+    /**
+     * 透传版本：data 为上游原始 JSON（对象而非字符串），直接写出 UTF-8 字节，不做二次转义。
+     */
+    @GetMapping("/query/raw")
+    public ResponseEntity<Result<RawJson>> queryRaw(@Valid DictQueryRequestDTO request,
+                                                    @RequestHeader(value = "X-Trace-Id", required = false) String traceId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                    HttpServletRequest servletRequest,
+                                                    HttpServletResponse servletResponse) {
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+        }
+        String caller = resolveCaller(servletRequest);
+
+        MDC.put("traceId", traceId);
+        MDC.put("caller", caller);
+        try {
+            return conditional(ifNoneMatch, dictQueryService.queryRaw(request, traceId), Function.identity());
+        } finally {
+            setRateLimitHeaders(servletResponse, caller, request.getDictType());
+            MDC.remove("traceId");
+            MDC.remove("caller");
+        }
+    }
+
+    /**
+     * 异步版本：上游调用与重试在独立线程池执行，不占用 Servlet 线程。
+     */
+    @GetMapping("/query/async")
+    public CompletableFuture<ResponseEntity<Result<String>>> queryAsync(@Valid DictQueryRequestDTO request,
+                                                                        @RequestHeader(value = "X-Trace-Id", required = false) String traceId,
+                                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                        HttpServletRequest servletRequest,
+                                                                        HttpServletResponse servletResponse) {
         if (traceId == null || traceId.isEmpty()) {
             traceId = UUID.randomUUID().toString().replace("-", "");
         }
+        String caller = resolveCaller(servletRequest);
 
         MDC.put("traceId", traceId);
+        MDC.put("caller", caller);
         try {
-            String response = dictQueryService.query(request, traceId);
-            return Result.success(response);
+            return dictQueryService.queryRawAsync(request, traceId).whenComplete((body, ex) ->
+                    setRateLimitHeaders(servletResponse, caller, request.getDictType()))
+                    .thenApply(body -> conditional(ifNoneMatch, body, RawJson::toString));
         } finally {
             MDC.remove("traceId");
+            MDC.remove("caller");
         }
     }
+
+    /**
+     * 批量查询：一次请求多个字典，服务端限并发调度，逐项返回结果或错误。
+     */
+    @PostMapping("/query/batch")
+    public CompletableFuture<Result<List<DictBatchItemVO>>> queryBatch(@Valid @RequestBody DictBatchQueryRequestDTO request,
+                                                                      @RequestHeader(value = "X-Trace-Id", required = false) String traceId,
+                                                                      HttpServletRequest servletRequest,
+                                                                      HttpServletResponse servletResponse) {
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+        }
+
+        MDC.put("traceId", traceId);
+        MDC.put("caller", resolveCaller(servletRequest));
+        try {
+            return dictQueryService.queryBatch(request.getItems(), traceId).whenComplete((items, ex) ->
+                    setRateLimitHeaders(servletResponse, null, null)).thenApply(Result::success);
+        } finally {
+            MDC.remove("traceId");
+            MDC.remove("caller");
+        }
+    }
+
+    /**
+     * 批量 code -> label 翻译，使用本地字典索引，可跨多个 dictType。
+     */
+    @PostMapping("/translate")
+    public Result<DictTranslateVO> translate(@Valid @RequestBody DictTranslateRequestDTO request,
+                                             @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+        }
+
+        MDC.put("traceId", traceId);
+        try {
+            return Result.success(dictQueryService.translate(request.getItems(), traceId));
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
+
+    private <T> ResponseEntity<Result<T>> conditional(String ifNoneMatch, RawJson body, Function<RawJson, T> data) {
+        if (body == null) {
+            return ResponseEntity.ok(Result.success(null));
+        }
+        String etag = body.etag();
+        if (etagMatches(ifNoneMatch, etag)) {
+            meterRegistry.counter("dict.conditional.requests", "result", "not_modified").increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (ifNoneMatch != null) {
+            meterRegistry.counter("dict.conditional.requests", "result", "modified").increment();
+        }
+        return ResponseEntity.ok().eTag(etag).body(Result.success(data.apply(body)));
+    }
+
+    /**
+     * If-None-Match 按弱比较：忽略 W/ 前缀，支持逗号分隔的多个值与 *。
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 调用方标识：默认取客户端地址；配置信任时优先取 X-Caller-Id。
+     */
+    private String resolveCaller(HttpServletRequest servletRequest) {
+        if (properties.getRateLimit().getPerKey().isTrustCallerHeader()) {
+            String caller = servletRequest.getHeader(CALLER_HEADER);
+            if (caller != null && !caller.isEmpty()) {
+                return caller;
+            }
+        }
+        return servletRequest.getRemoteAddr();
+    }
+
+    private void setRateLimitHeaders(HttpServletResponse servletResponse, String caller, String dictType) {
+        servletResponse.setHeader("X-RateLimit-Limit", String.valueOf(dictQueryService.permitLimit(caller, dictType)));
+        servletResponse.setHeader("X-RateLimit-Remaining",
+                String.valueOf(dictQueryService.remainingPermits(caller, dictType)));
+    }
 }
@@ -32,7 +32,7 @@ public class ProjectController {
     }
 
     @GetMapping
-    public Result<PageVO<ProjectVO>> pageList(@ModelAttribute ProjectQueryDTO dto) {
+    public Result<PageVO<ProjectVO>> pageList(@ModelAttribute @Validated ProjectQueryDTO dto) {
         PageVO<ProjectVO> pageVO = projectService.pageList(dto);
         return Result.success(pageVO);
     }
@@ -0,0 +1,16 @@
+package com.example.backend.converter;
+
+import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.vo.CallLogVO;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CallLogConverter {
+
+    public CallLogVO toVO(ExternalCallLog entity) {
+        CallLogVO vo = new CallLogVO();
+        BeanUtils.copyProperties(entity, vo);
+        return vo;
+    }
+}
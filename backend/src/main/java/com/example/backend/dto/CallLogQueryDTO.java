@@ -0,0 +1,37 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+import org.hibernate.validator.constraints.Range;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Data
+public class CallLogQueryDTO {
+
+    public static final int DEFAULT_SIZE = 50;
+
+    private String traceId;
+
+    private String service;
+
+    @Range(min = 0, max = 1, message = "success只能为0或1")
+    private Integer success;
+
+    /**
+     * 时间窗口 [from, to)，按 created_at 过滤。
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime from;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime to;
+
+    /**
+     * 上一页返回的 nextCursor，第一页不传。
+     */
+    private String cursor;
+
+    @Range(min = 1, max = 200, message = "每页条数必须在1-200之间")
+    private Integer size = DEFAULT_SIZE;
+}
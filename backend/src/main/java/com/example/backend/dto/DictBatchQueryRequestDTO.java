@@ -0,0 +1,17 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class DictBatchQueryRequestDTO {
+
+    @NotEmpty(message = "items不能为空")
+    @Size(max = 50, message = "items数量不能超过50")
+    private List<@NotNull @Valid DictQueryRequestDTO> items;
+}
@@ -0,0 +1,29 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class DictTranslateRequestDTO {
+
+    @NotEmpty(message = "items不能为空")
+    @Size(max = 50, message = "items数量不能超过50")
+    private List<@NotNull @Valid Item> items;
+
+    @Data
+    public static class Item {
+
+        @NotBlank(message = "dictType不能为空")
+        @Size(max = 50, message = "dictType长度不能超过50")
+        private String dictType;
+
+        @NotEmpty(message = "codes不能为空")
+        private List<String> codes;
+    }
+}
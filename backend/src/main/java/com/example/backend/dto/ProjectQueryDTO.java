@@ -3,14 +3,37 @@ package com.example.backend.dto;
 import lombok.Data;
 import org.hibernate.validator.constraints.Range;
 
+import javax.validation.constraints.NotNull;
+
 @Data
 public class ProjectQueryDTO {
 
+    @NotNull(message = "每页条数不能为空")
     @Range(min = 1, max = 100, message = "每页条数必须在1-100之间")
     private Integer size = 10;
 
+    @NotNull(message = "页码不能为空")
     @Range(min = 1, message = "页码必须大于0")
     private Integer page = 1;
 
     private String keyword;
+
+    /**
+     * 游标翻页：首页传空串，之后传上一页返回的 nextCursor。传入时忽略 page，也不统计总数。
+     */
+    private String cursor;
+
+    /**
+     * 总数统计方式，按页码翻页时生效
+     */
+    private CountMode count = CountMode.EXACT;
+
+    public enum CountMode {
+        /** COUNT(*) 与数据查询并发执行 */
+        EXACT,
+        /** 不统计总数，多取一行判断 hasMore，total 为 -1 */
+        NONE,
+        /** 返回后台定期刷新的缓存总数，hasMore 按多取一行判断 */
+        APPROX
+    }
 }
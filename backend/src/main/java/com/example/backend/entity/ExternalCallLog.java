@@ -32,9 +32,15 @@ public class ExternalCallLog {
 
     private Long durationMs;
 
+    private Long wireBytes;
+
+    private Long decodedBytes;
+
     private String exceptionType;
 
     private String exceptionMessage;
 
+    private String bodyHash;
+
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,21 @@
+package com.example.backend.entity;
+
+import com.example.backend.common.KeysetCursor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * external_call_log 键集分页第一步的投影：只有主键 (id, created_at)。
+ */
+@Data
+public class ExternalCallLogKey {
+
+    private Long id;
+
+    private LocalDateTime createdAt;
+
+    public KeysetCursor toCursor() {
+        return new KeysetCursor(createdAt, id);
+    }
+}
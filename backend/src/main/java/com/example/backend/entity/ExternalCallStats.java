@@ -0,0 +1,40 @@
+package com.example.backend.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("external_call_stats")
+public class ExternalCallStats {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private LocalDateTime minuteStart;
+
+    private String service;
+
+    private Integer httpStatus;
+
+    private Long callCount;
+
+    private Long errorCount;
+
+    private Long totalMs;
+
+    private Long maxMs;
+
+    private Long p50Ms;
+
+    private Long p95Ms;
+
+    private Long p99Ms;
+
+    private byte[] histogram;
+
+    private LocalDateTime createdAt;
+}
@@ -11,7 +11,8 @@ public enum ErrorCode {
     PARAM_FORMAT_ERROR(40002, "请求参数格式/类型错误"),
     PROJECT_NOT_FOUND(40401, "项目不存在"),
     INTERNAL_ERROR(50000, "服务内部错误"),
-    RATE_LIMIT_EXCEEDED(42900, "请求频率超过限制");
+    RATE_LIMIT_EXCEEDED(42900, "请求频率超过限制"),
+    UPSTREAM_CIRCUIT_OPEN(50301, "第三方服务暂不可用");
 
     private final int code;
     private final String message;
@@ -83,6 +83,13 @@ public class GlobalExceptionHandler {
         return Result.fail(ErrorCode.RATE_LIMIT_EXCEEDED.getCode(), ex.getMessage());
     }
 
+    @ExceptionHandler(CircuitBreakerOpenException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Result<?> handleCircuitBreakerOpenException(CircuitBreakerOpenException ex) {
+        log.warn("第三方服务熔断中: {}", ex.getMessage());
+        return Result.fail(ErrorCode.UPSTREAM_CIRCUIT_OPEN.getCode(), ex.getMessage());
+    }
+
     @ExceptionHandler(NoHandlerFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Result<?> handleNoHandlerFoundException(NoHandlerFoundException ex) {
@@ -1,9 +1,83 @@
 package com.example.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.backend.common.KeysetCursor;
+import com.example.backend.dto.CallLogQueryDTO;
 import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.entity.ExternalCallLogKey;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ExternalCallLogMapper extends BaseMapper<ExternalCallLog> {
+
+    /**
+     * 多行 INSERT，一次写入一批日志。
+     */
+    @Insert("<script>"
+            + "INSERT INTO external_call_log (trace_id, service, target_url, http_method, query_string, http_status, "
+            + "success, attempt, duration_ms, wire_bytes, decoded_bytes, exception_type, exception_message, body_hash, created_at) VALUES "
+            + "<foreach collection='logs' item='l' separator=','>"
+            + "(#{l.traceId}, #{l.service}, #{l.targetUrl}, #{l.httpMethod}, #{l.queryString}, #{l.httpStatus}, "
+            + "#{l.success}, #{l.attempt}, #{l.durationMs}, #{l.wireBytes}, #{l.decodedBytes}, #{l.exceptionType}, "
+            + "#{l.exceptionMessage}, #{l.bodyHash}, #{l.createdAt})"
+            + "</foreach>"
+            + "</script>")
+    int insertBatch(@Param("logs") List<ExternalCallLog> logs);
+
+    /**
+     * MySQL 分区元数据：name 为分区名，bound 为 VALUES LESS THAN 的 TO_DAYS 值（MAXVALUE 分区为字符串）。
+     * 未分区或数据库不支持时返回空或抛异常。
+     */
+    @Select("SELECT PARTITION_NAME AS name, PARTITION_DESCRIPTION AS bound FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'external_call_log' AND PARTITION_NAME IS NOT NULL "
+            + "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<Map<String, Object>> selectPartitions();
+
+    /**
+     * 从 MAXVALUE 分区中拆出一个新分区，name 由调用方校验。
+     */
+    @Update("ALTER TABLE external_call_log REORGANIZE PARTITION ${future} INTO ("
+            + "PARTITION ${name} VALUES LESS THAN (${bound}), PARTITION ${future} VALUES LESS THAN MAXVALUE)")
+    void splitFuturePartition(@Param("future") String future, @Param("name") String name, @Param("bound") long bound);
+
+    @Update("ALTER TABLE external_call_log DROP PARTITION ${name}")
+    void dropPartition(@Param("name") String name);
+
+    /**
+     * 按 idx_created_at 的顺序取一批过期日志的 id，配合 deleteBatchIds 小批量删除；
+     * 范围扫描取够 limit 行即停止，不对全部过期行排序。
+     */
+    @Select("SELECT id FROM external_call_log WHERE created_at < #{cutoff} ORDER BY created_at, id LIMIT #{limit}")
+    List<Long> selectExpiredIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * 键集分页第一步：只取 (id, created_at)。按 traceId（可加 success）查询由 idx_trace_id
+     * (trace_id, created_at, success) 覆盖，按 service（可加 success）查询由 idx_service_created_at
+     * (service, created_at, success) 覆盖，都不回表。traceId 与 service 同时指定时走 idx_trace_id，
+     * service 条件需要回表判断，但单条链路的行数很少，代价可以忽略。按 created_at、id 倒序，从游标之后开始。
+     */
+    @Select("<script>"
+            + "SELECT id, created_at FROM external_call_log"
+            + "<where>"
+            + "<if test='q.traceId != null and q.traceId != \"\"'>AND trace_id = #{q.traceId}</if>"
+            + "<if test='q.service != null and q.service != \"\"'>AND service = #{q.service}</if>"
+            + "<if test='q.success != null'>AND success = #{q.success}</if>"
+            + "<if test='q.from != null'>AND created_at &gt;= #{q.from}</if>"
+            + "<if test='q.to != null'>AND created_at &lt; #{q.to}</if>"
+            + "<if test='cursor != null'>"
+            + "AND (created_at &lt; #{cursor.createdAt} OR (created_at = #{cursor.createdAt} AND id &lt; #{cursor.id}))"
+            + "</if>"
+            + "</where>"
+            + "ORDER BY created_at DESC, id DESC LIMIT #{limit}"
+            + "</script>")
+    List<ExternalCallLogKey> selectKeysetPage(@Param("q") CallLogQueryDTO query, @Param("cursor") KeysetCursor cursor,
+                                           @Param("limit") int limit);
 }
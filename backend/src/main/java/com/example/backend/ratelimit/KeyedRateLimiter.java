@@ -0,0 +1,146 @@
+package com.example.backend.ratelimit;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两级限流：全局令牌桶保护上游总配额，按 key（调用方 + AppKey + dictType）的令牌桶避免单个调用方占满配额。
+ * <p>
+ * key 级令牌桶放在分段加锁的 Guava Cache 中，条目数有上限，空闲超过 idleEvict 后淘汰。
+ */
+@Slf4j
+public class KeyedRateLimiter {
+
+    private final ThirdPartyProperties.RateLimit config;
+    private final TokenBucket global;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter globalRejected;
+    private final Counter keyRejected;
+
+    public KeyedRateLimiter(ThirdPartyProperties.RateLimit config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.global = new TokenBucket(config.getCapacity(), config.getRefillTokens(),
+                TimeUnit.SECONDS.toMillis(config.getRefillDurationSeconds()));
+        ThirdPartyProperties.RateLimit.PerKey perKey = config.getPerKey();
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(perKey.getMaxKeys())
+                .expireAfterAccess(perKey.getIdleEvict(), TimeUnit.MILLISECONDS)
+                .build();
+
+        this.globalRejected = Counter.builder("dict.ratelimit.rejected").tag("scope", "global").register(meterRegistry);
+        this.keyRejected = Counter.builder("dict.ratelimit.rejected").tag("scope", "key").register(meterRegistry);
+        Gauge.builder("dict.ratelimit.global.remaining", global, TokenBucket::available).register(meterRegistry);
+        Gauge.builder("dict.ratelimit.keys", buckets, Cache::size).register(meterRegistry);
+    }
+
+    /**
+     * 只占用全局令牌，用于后台刷新等不归属具体调用方的请求。
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(null, 0);
+    }
+
+    /**
+     * 只占用全局令牌，且占用后全局至少还剩 reservedRatio * capacity 个，否则不占用并返回 false。
+     * 用于可以推迟的后台请求，保证前台请求始终有余量。
+     */
+    public boolean tryAcquireWithHeadroom(double reservedRatio) {
+        return global.tryAcquireAbove((int) Math.ceil(global.getCapacity() * reservedRatio));
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) {
+        return tryAcquire(null, unit.toMillis(timeout));
+    }
+
+    /**
+     * 依次占用 key 令牌与全局令牌，最多等待 timeoutMs；任一层不足时归还已占用的令牌并返回 false。
+     * 需要等待时阻塞当前线程，异步调用方应使用 {@link #reserve(String, long)}。
+     */
+    public boolean tryAcquire(String key, long timeoutMs) {
+        long wait = reserve(key, timeoutMs);
+        if (wait < 0) {
+            return false;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 预占 key 令牌与全局令牌但不等待，由调用方在返回的时间之后再发请求。
+     *
+     * @return 需要等待的纳秒数（0 表示立即可用）；超过 timeoutMs 时返回 -1，且不占用任何令牌
+     */
+    public long reserve(String key, long timeoutMs) {
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+        TokenBucket keyBucket = bucketOf(key);
+        long keyWait = 0;
+        if (keyBucket != null) {
+            keyWait = keyBucket.reserve(maxWaitNanos);
+            if (keyWait < 0) {
+                keyRejected.increment();
+                return -1;
+            }
+        }
+        long globalWait = global.reserve(maxWaitNanos);
+        if (globalWait < 0) {
+            if (keyBucket != null) {
+                keyBucket.refund();
+            }
+            globalRejected.increment();
+            return -1;
+        }
+        return Math.max(keyWait, globalWait);
+    }
+
+    /**
+     * key 与全局令牌桶中剩余较少的一方；key 为空时只看全局。只读，不为未占用过令牌的 key 创建令牌桶。
+     */
+    public int remaining(String key) {
+        int remaining = global.available();
+        if (!perKeyEnabled(key)) {
+            return remaining;
+        }
+        TokenBucket keyBucket = buckets.getIfPresent(key);
+        return Math.min(remaining, keyBucket != null ? keyBucket.available() : config.getPerKey().getCapacity());
+    }
+
+    public int limit(String key) {
+        int limit = global.getCapacity();
+        return perKeyEnabled(key) ? Math.min(limit, config.getPerKey().getCapacity()) : limit;
+    }
+
+    public long keyCount() {
+        return buckets.size();
+    }
+
+    private boolean perKeyEnabled(String key) {
+        return key != null && config.getPerKey().isEnabled();
+    }
+
+    private TokenBucket bucketOf(String key) {
+        if (!perKeyEnabled(key)) {
+            return null;
+        }
+        ThirdPartyProperties.RateLimit.PerKey perKey = config.getPerKey();
+        try {
+            return buckets.get(key, () -> new TokenBucket(perKey.getCapacity(), perKey.getRefillTokens(),
+                    TimeUnit.SECONDS.toMillis(perKey.getRefillDurationSeconds())));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.backend.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 无锁令牌桶：容量为 capacity，每 refillDuration 补充 refillTokens 个令牌（平滑补充）。
+ * <p>
+ * 用 GCRA 实现，只保存一个“理论到达时间” tat：每取一个令牌 tat 前移 interval，
+ * tat 超出当前时间不能多于 capacity * interval，因此最多允许 capacity 个突发请求。
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong tat;
+
+    public TokenBucket(int capacity, double refillTokens, long refillDurationMillis) {
+        this(capacity, refillTokens, refillDurationMillis, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, double refillTokens, long refillDurationMillis, LongSupplier nanoClock) {
+        if (capacity <= 0 || refillTokens <= 0 || refillDurationMillis <= 0) {
+            throw new IllegalArgumentException("capacity/refillTokens/refillDuration 必须大于0");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.MILLISECONDS.toNanos(refillDurationMillis) / refillTokens));
+        this.burstNanos = intervalNanos * capacity;
+        this.nanoClock = nanoClock;
+        this.tat = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * 取走一个令牌后仍至少剩 reserved 个时才占用，不等待；reserved 个令牌留给前台请求。
+     */
+    public boolean tryAcquireAbove(int reserved) {
+        long headroomNanos = burstNanos - intervalNanos * Math.max(0, reserved);
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > headroomNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 预占一个令牌。
+     *
+     * @return 需要等待的纳秒数（0 表示立即可用）；超过 maxWaitNanos 时返回 -1 且不占用令牌
+     */
+    public long reserve(long maxWaitNanos) {
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * 归还一个已预占的令牌（组合限流时另一层拒绝了请求）。
+     */
+    public void refund() {
+        tat.addAndGet(-intervalNanos);
+    }
+
+    public int available() {
+        long now = nanoClock.getAsLong();
+        long backlog = Math.max(0, tat.get() - now);
+        return (int) Math.max(0, Math.min(capacity, (burstNanos - backlog) / intervalNanos));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend.resilience;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * 可中止的上游请求句柄：在 {@link #runWith} 范围内发出的 HttpClient 请求会绑定到当前句柄，
+ * 调用 {@link #abort()} 时直接关闭底层连接，正在阻塞读的线程随即返回。
+ */
+public class AbortHandle {
+
+    private static final ThreadLocal<AbortHandle> CURRENT = new ThreadLocal<>();
+
+    private volatile HttpUriRequest request;
+    private volatile boolean aborted;
+
+    public <T> T runWith(Supplier<T> call) {
+        AbortHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public void abort() {
+        aborted = true;
+        HttpUriRequest current = request;
+        if (current != null) {
+            current.abort();
+        }
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * 由 RestTemplate 的请求工厂在创建请求后调用。
+     */
+    public static void bindCurrent(HttpUriRequest request) {
+        AbortHandle handle = CURRENT.get();
+        if (handle != null) {
+            handle.request = request;
+            if (handle.aborted) {
+                request.abort();
+            }
+        }
+    }
+
+    public static boolean isCurrentAborted() {
+        AbortHandle handle = CURRENT.get();
+        return handle != null && handle.aborted;
+    }
+}
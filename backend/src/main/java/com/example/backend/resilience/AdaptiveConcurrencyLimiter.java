@@ -0,0 +1,174 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制（AIMD）：调用耗时接近观测到的最小 RTT 时，每完成 limit 次调用上限 +1；
+ * 耗时超过 minRtt * tolerance 或上游出错时，上限乘以 backoffRatio。
+ * <p>
+ * 超过上限的调用在有界队列中最多等待 queueTimeout，队列满或等待超时直接拒绝。
+ * minRtt 每 rttResetSamples 次采样重置一次，以便上游基线变化后重新校准。
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final ThirdPartyProperties.Concurrency config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Counter rejectedCounter;
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(String name, ThirdPartyProperties.Concurrency config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+        this.rejectedCounter = meterRegistry.counter(name + ".concurrency.rejected");
+        Gauge.builder(name + ".concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder(name + ".concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+        Gauge.builder(name + ".concurrency.queued", this, AdaptiveConcurrencyLimiter::getQueued).register(meterRegistry);
+    }
+
+    /**
+     * @return 是否获得执行许可；获得后必须调用 {@link #onSuccess}、{@link #onDropped} 或 {@link #onIgnore} 之一
+     */
+    public boolean tryAcquire() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= config.getQueueSize()) {
+                rejectedCounter.increment();
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(config.getQueueTimeout());
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        rejectedCounter.increment();
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejectedCounter.increment();
+                return false;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long rttNanos) {
+        release(rttNanos, false);
+    }
+
+    /**
+     * 超时、5xx 等说明上游过载，立即收缩上限。
+     */
+    public void onDropped(long rttNanos) {
+        release(rttNanos, true);
+    }
+
+    /**
+     * 结果与上游容量无关（如被主动中止），只归还许可不调整上限。
+     */
+    public void onIgnore() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            inFlight--;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long rttNanos, boolean dropped) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            inFlight--;
+            if (++samples >= config.getRttResetSamples()) {
+                samples = 0;
+                minRttNanos = rttNanos;
+            } else {
+                minRttNanos = Math.min(minRttNanos, rttNanos);
+            }
+            int before = currentLimit();
+            if (dropped || rttNanos > minRttNanos * config.getTolerance()) {
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+            } else {
+                limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+            }
+            int after = currentLimit();
+            if (after != before) {
+                log.debug("上游并发上限调整: {} -> {}", before, after);
+            }
+            if (after > before) {
+                released.signalAll();
+            } else {
+                released.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+}
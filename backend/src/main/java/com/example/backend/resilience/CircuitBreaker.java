@@ -0,0 +1,175 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于滑动窗口（最近 windowSize 次调用）的熔断器，按失败率与慢调用率判断是否打开。
+ * 打开 waitDurationInOpen 后进入半开，放行 permittedCallsInHalfOpen 个探测请求：
+ * 全部成功则关闭，任一失败或慢调用则重新打开。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final ThirdPartyProperties.CircuitBreaker config;
+    private final LongSupplier clock;
+    private final BiConsumer<State, State> transitionListener;
+    private final MeterRegistry meterRegistry;
+    private final String name;
+
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+    private int slowCount;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, ThirdPartyProperties.CircuitBreaker config, MeterRegistry meterRegistry,
+                          BiConsumer<State, State> transitionListener) {
+        this(name, config, meterRegistry, transitionListener, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(String name, ThirdPartyProperties.CircuitBreaker config, MeterRegistry meterRegistry,
+                   BiConsumer<State, State> transitionListener, LongSupplier clock) {
+        this.name = name;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.transitionListener = transitionListener;
+        this.clock = clock;
+        this.window = new byte[Math.max(1, config.getWindowSize())];
+        Gauge.builder(name + ".circuit.state", this, cb -> cb.getState().ordinal()).register(meterRegistry);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否允许本次调用；拒绝时调用方应直接失败，不再访问上游。
+     */
+    public boolean tryAcquirePermission() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        State from;
+        State to;
+        boolean permitted = true;
+        synchronized (this) {
+            from = state;
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= config.getWaitDurationInOpen()) {
+                moveTo(State.HALF_OPEN);
+            }
+            if (state == State.OPEN) {
+                permitted = false;
+            } else if (state == State.HALF_OPEN) {
+                if (halfOpenPermitted < config.getPermittedCallsInHalfOpen()) {
+                    halfOpenPermitted++;
+                } else {
+                    permitted = false;
+                }
+            }
+            to = state;
+        }
+        if (!permitted) {
+            meterRegistry.counter(name + ".circuit.rejected").increment();
+        }
+        fireIfChanged(from, to);
+        return permitted;
+    }
+
+    public void onResult(boolean failure, long durationMs) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        boolean slow = durationMs >= config.getSlowCallDuration();
+        State from;
+        State to;
+        synchronized (this) {
+            from = state;
+            if (state == State.HALF_OPEN) {
+                if (failure || slow) {
+                    moveTo(State.OPEN);
+                } else if (++halfOpenSucceeded >= config.getPermittedCallsInHalfOpen()) {
+                    moveTo(State.CLOSED);
+                }
+            } else if (state == State.CLOSED) {
+                record((byte) ((failure ? FAILURE : 0) | (slow ? SLOW : 0)));
+                if (windowCount >= config.getMinimumCalls()
+                        && (failureCount * 100 >= config.getFailureRateThreshold() * windowCount
+                        || slowCount * 100 >= config.getSlowCallRateThreshold() * windowCount)) {
+                    moveTo(State.OPEN);
+                }
+            }
+            to = state;
+        }
+        fireIfChanged(from, to);
+    }
+
+    /**
+     * 已取得许可但结果不计入统计的调用（被对冲中止、非上游原因失败等）归还半开探测名额，
+     * 否则名额耗尽后熔断器会一直停留在半开并拒绝所有请求。
+     * 跨越一次打开/半开周期后才归还的名额最多让新周期多放行一个探测。
+     */
+    public void onIgnored() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN && halfOpenPermitted > halfOpenSucceeded) {
+                halfOpenPermitted--;
+            }
+        }
+    }
+
+    private void record(byte outcome) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            failureCount -= evicted & FAILURE;
+            slowCount -= (evicted & SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        failureCount += outcome & FAILURE;
+        slowCount += (outcome & SLOW) >> 1;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void moveTo(State target) {
+        state = target;
+        if (target == State.OPEN) {
+            openedAt = clock.getAsLong();
+        } else if (target == State.HALF_OPEN) {
+            halfOpenPermitted = 0;
+            halfOpenSucceeded = 0;
+        } else {
+            windowIndex = 0;
+            windowCount = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+
+    private void fireIfChanged(State from, State to) {
+        if (from != to) {
+            meterRegistry.counter(name + ".circuit.transitions", "from", from.name(), "to", to.name()).increment();
+            transitionListener.accept(from, to);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求：首个请求超过近期耗时分位数仍未返回时，再发一个相同请求，先成功者胜出，另一个被中止。
+ * 对冲请求使用独立的小额度限流，不挤占主限流配额。
+ */
+public class Hedger {
+
+    private final String name;
+    private final ThirdPartyProperties.Hedging config;
+    private final UpstreamExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final LatencyTracker latencyTracker;
+    private final TokenBucket hedgeLimiter;
+
+    public Hedger(String name, ThirdPartyProperties.Hedging config, UpstreamExecutor executor,
+                  MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.latencyTracker = new LatencyTracker(config.getWindowSize());
+        this.hedgeLimiter = new TokenBucket((int) Math.max(1, Math.ceil(config.getMaxPerSecond())),
+                config.getMaxPerSecond(), 1000);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public <T> CompletableFuture<T> execute(Supplier<T> call) {
+        if (!config.isEnabled()) {
+            return executor.supply(call);
+        }
+        meterRegistry.counter(name + ".hedge.requests").increment();
+        Race<T> race = new Race<>(call);
+        race.launch(true);
+        executor.schedule(() -> {
+            if (!race.result.isDone()) {
+                if (!hedgeLimiter.tryAcquire()) {
+                    meterRegistry.counter(name + ".hedge.skipped").increment();
+                } else if (race.launch(false)) {
+                    meterRegistry.counter(name + ".hedge.sent").increment();
+                } else {
+                    // 取令牌期间首个请求已返回
+                    hedgeLimiter.refund();
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        }, hedgeDelay());
+        return race.result;
+    }
+
+    LatencyTracker latencyTracker() {
+        return latencyTracker;
+    }
+
+    long hedgeDelay() {
+        if (latencyTracker.count() < config.getMinSamples()) {
+            return config.getMaxDelay();
+        }
+        long delay = latencyTracker.percentile(config.getPercentile());
+        return Math.max(config.getMinDelay(), Math.min(config.getMaxDelay(), delay));
+    }
+
+    /**
+     * 耗时样本取自首个请求发出到任一请求成功的时间：对冲胜出时，被中止的首个请求的耗时至少为该值，
+     * 按此下界记录，避免只统计快请求导致分位数偏低、对冲延迟不断缩短。
+     * <p>
+     * 登记句柄与确定胜者在同一把锁内进行：已有胜者时不再发出新请求；排队中被中止的请求出队后直接放弃，不调用上游。
+     */
+    private final class Race<T> {
+
+        private final long startNanos = System.nanoTime();
+        private final Supplier<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<AbortHandle> handles = new ArrayList<>();
+        private final AtomicInteger running = new AtomicInteger();
+
+        private Race(Supplier<T> call) {
+            this.call = call;
+        }
+
+        /**
+         * @return 已有胜者时返回 false，不发出请求
+         */
+        private boolean launch(boolean primary) {
+            AbortHandle handle = new AbortHandle();
+            synchronized (this) {
+                if (result.isDone()) {
+                    return false;
+                }
+                handles.add(handle);
+            }
+            running.incrementAndGet();
+            executor.supply(() -> {
+                if (handle.isAborted()) {
+                    throw new CancellationException("对冲已有胜者，放弃排队中的请求");
+                }
+                return handle.runWith(call);
+            }).whenComplete((value, ex) -> {
+                if (ex == null) {
+                    if (win(value, handle)) {
+                        latencyTracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                        meterRegistry.counter(name + ".hedge.wins", "winner", primary ? "primary" : "hedge")
+                                .increment();
+                    }
+                } else if (running.decrementAndGet() == 0) {
+                    result.completeExceptionally(UpstreamExecutor.unwrap(ex));
+                }
+            });
+            return true;
+        }
+
+        private synchronized boolean win(T value, AbortHandle winner) {
+            if (!result.complete(value)) {
+                return false;
+            }
+            for (AbortHandle other : handles) {
+                if (other != winner) {
+                    other.abort();
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.backend.resilience;
+
+import java.util.Arrays;
+
+/**
+ * 记录最近 windowSize 次调用耗时，按需计算分位数。
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int index;
+    private int count;
+
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[Math.max(1, windowSize)];
+    }
+
+    public synchronized void record(long durationMs) {
+        samples[index] = durationMs;
+        index = (index + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile 0-100
+     * @return 分位数耗时；没有样本时返回 -1
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+}
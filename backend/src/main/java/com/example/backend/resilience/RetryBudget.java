@@ -0,0 +1,53 @@
+package com.example.backend.resilience;
+
+/**
+ * 重试预算（令牌桶）：每个请求存入 ratio 个令牌，每次重试取出 1 个，桶容量为 maxTokens。
+ * 另外每秒保底允许 minRetriesPerSecond 次重试，避免低流量时完全无法重试。
+ * 令牌以千分之一为单位用整数记录，避免浮点累加误差。
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final int minRetriesPerSecond;
+
+    private long tokens;
+    private long currentSecond;
+    private int reservedUsed;
+
+    public RetryBudget(double ratio, int maxTokens, int minRetriesPerSecond) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.maxTokens = maxTokens * SCALE;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+    }
+
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + depositPerRequest);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        return tryWithdraw(System.currentTimeMillis() / 1000);
+    }
+
+    synchronized boolean tryWithdraw(long nowSecond) {
+        if (nowSecond != currentSecond) {
+            currentSecond = nowSecond;
+            reservedUsed = 0;
+        }
+        if (reservedUsed < minRetriesPerSecond) {
+            reservedUsed++;
+            return true;
+        }
+        if (tokens >= SCALE) {
+            tokens -= SCALE;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized double available() {
+        return (double) tokens / SCALE;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * 通用重试引擎：按状态码类别判断是否可重试，退避带随机抖动，并受全局重试预算限制，
+ * 避免上游故障时所有调用方同步重试放大流量。
+ */
+public class RetryEngine {
+
+    public interface FailureListener {
+        void onFailure(RestClientException e, int attempt);
+    }
+
+    private final String name;
+    private final ThirdPartyProperties.Http.Retry config;
+    private final RetryBudget budget;
+    private final MeterRegistry meterRegistry;
+
+    public RetryEngine(String name, ThirdPartyProperties.Http.Retry config, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        ThirdPartyProperties.Http.Retry.Budget budgetConfig = config.getBudget();
+        this.budget = new RetryBudget(budgetConfig.getRatio(), budgetConfig.getMaxTokens(),
+                budgetConfig.getMinRetriesPerSecond());
+        Gauge.builder(name + ".retry.budget.tokens", budget, RetryBudget::available).register(meterRegistry);
+    }
+
+    public <T> T execute(IntFunction<T> call, FailureListener listener) {
+        budget.deposit();
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.apply(attempt);
+            } catch (RestClientException e) {
+                listener.onFailure(e, attempt);
+                if (!shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                delay = nextDelay(attempt, delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("重试被中断", ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * 异步版本：退避期间不占用线程，由 {@link UpstreamExecutor#schedule} 调度下一次尝试。
+     */
+    public <T> CompletableFuture<T> executeAsync(IntFunction<CompletableFuture<T>> call, FailureListener listener,
+                                                 UpstreamExecutor executor) {
+        budget.deposit();
+        return attemptAsync(call, listener, executor, 1, 0);
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(IntFunction<CompletableFuture<T>> call, FailureListener listener,
+                                                  UpstreamExecutor executor, int attempt, long previousDelay) {
+        return call.apply(attempt)
+                .handle((value, ex) -> {
+                    if (ex == null) {
+                        return CompletableFuture.completedFuture(value);
+                    }
+                    Throwable cause = UpstreamExecutor.unwrap(ex);
+                    if (!(cause instanceof RestClientException)) {
+                        return UpstreamExecutor.<T>failed(cause);
+                    }
+                    RestClientException e = (RestClientException) cause;
+                    listener.onFailure(e, attempt);
+                    if (!shouldRetry(e, attempt)) {
+                        return UpstreamExecutor.<T>failed(e);
+                    }
+                    long delay = nextDelay(attempt, previousDelay);
+                    return executor.schedule(
+                            () -> attemptAsync(call, listener, executor, attempt + 1, delay), delay);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    boolean shouldRetry(RestClientException e, int attempt) {
+        if (!isRetryable(e)) {
+            record("non_retryable");
+            return false;
+        }
+        if (attempt >= config.getMaxAttempts()) {
+            record("max_attempts");
+            return false;
+        }
+        if (config.getBudget().isEnabled() && !budget.tryWithdraw()) {
+            record("budget_exhausted");
+            return false;
+        }
+        record("retried");
+        return true;
+    }
+
+    public boolean isRetryable(RestClientException e) {
+        if (!(e instanceof HttpStatusCodeException)) {
+            return true;
+        }
+        int status = ((HttpStatusCodeException) e).getRawStatusCode();
+        List<String> retryOn = config.getRetryOn();
+        for (String rule : retryOn) {
+            if (rule.length() == 3 && rule.endsWith("xx")) {
+                if (status / 100 == rule.charAt(0) - '0') {
+                    return true;
+                }
+            } else if (rule.equals(String.valueOf(status))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算第 attempt 次失败后的等待时间。FULL：[0, 指数退避值]；DECORRELATED：[initial, 上次 * 3]。
+     */
+    long nextDelay(int attempt, long previousDelay) {
+        long initial = config.getInitialDelay();
+        long max = config.getMaxDelay();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (config.getJitter()) {
+            case DECORRELATED:
+                long upper = Math.max(initial, previousDelay * 3);
+                return Math.min(max, initial + (long) (random.nextDouble() * (upper - initial)));
+            case FULL:
+                return (long) (random.nextDouble() * exponential(attempt, initial, max));
+            default:
+                return exponential(attempt, initial, max);
+        }
+    }
+
+    private long exponential(int attempt, long initial, long max) {
+        return (long) Math.min(max, initial * Math.pow(config.getMultiplier(), attempt - 1));
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter(name + ".retry", "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.exception.RateLimitException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 上游调用专用线程池：有界队列，满了直接拒绝；退避等待交给单线程定时器，不占用工作线程。
+ * 提交任务时捕获当前 MDC，在工作线程执行任务及其后续回调期间恢复。
+ */
+@Slf4j
+@Component
+public class UpstreamExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+
+    public UpstreamExecutor(ThirdPartyProperties properties, MeterRegistry meterRegistry) {
+        ThirdPartyProperties.Async config = properties.getAsync();
+        this.executor = new ThreadPoolExecutor(
+                config.getCorePoolSize(),
+                config.getMaxPoolSize(),
+                config.getKeepAlive(),
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("dict-upstream-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("dict-upstream-timer-%d").setDaemon(true).build());
+
+        Gauge.builder("dict.upstream.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("dict.upstream.executor.queued", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        try {
+            executor.execute(() -> runWithMdc(context, () -> {
+                try {
+                    future.complete(task.get());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.warn("上游调用线程池已满，拒绝请求");
+            future.completeExceptionally(new RateLimitException("上游调用排队已满，请稍后再试"));
+        }
+        return future;
+    }
+
+    /**
+     * 延迟 delayMs 后执行 task，等待期间不占用任何线程。
+     */
+    public <T> CompletableFuture<T> schedule(Supplier<CompletableFuture<T>> task, long delayMs) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        try {
+            timer.schedule(() -> runWithMdc(context, () -> {
+                try {
+                    task.get().whenComplete((value, ex) -> {
+                        if (ex != null) {
+                            future.completeExceptionally(unwrap(ex));
+                        } else {
+                            future.complete(value);
+                        }
+                    });
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public static <T> CompletableFuture<T> failed(Throwable ex) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+
+    public static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    private static void runWithMdc(Map<String, String> context, Runnable runnable) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        if (context != null) {
+            MDC.setContextMap(context);
+        } else {
+            MDC.clear();
+        }
+        try {
+            runnable.run();
+        } finally {
+            if (previous != null) {
+                MDC.setContextMap(previous);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.backend.service;
+
+import com.example.backend.vo.CallStatsVO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CallStatsService {
+
+    /**
+     * 按分钟返回 [from, to) 内的调用统计，同一分钟内各状态码合并为一行。
+     *
+     * @param service 为空时返回所有服务
+     */
+    List<CallStatsVO> query(String service, LocalDateTime from, LocalDateTime to);
+}
@@ -1,8 +1,38 @@
 package com.example.backend.service;
 
+import com.example.backend.common.RawJson;
 import com.example.backend.dto.DictQueryRequestDTO;
+import com.example.backend.dto.DictTranslateRequestDTO;
+import com.example.backend.vo.DictBatchItemVO;
+import com.example.backend.vo.DictTranslateVO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface DictQueryService {
 
     String query(DictQueryRequestDTO request, String traceId);
+
+    /**
+     * 与 {@link #query} 相同，但返回上游原始 JSON 字节，供透传接口直接写入响应。
+     */
+    RawJson queryRaw(DictQueryRequestDTO request, String traceId);
+
+    CompletableFuture<String> queryAsync(DictQueryRequestDTO request, String traceId);
+
+    CompletableFuture<RawJson> queryRawAsync(DictQueryRequestDTO request, String traceId);
+
+    CompletableFuture<List<DictBatchItemVO>> queryBatch(List<DictQueryRequestDTO> requests, String traceId);
+
+    /**
+     * 调用方在该 dictType 上剩余的限流令牌数（dictType 为空时只看全局）。
+     */
+    int remainingPermits(String caller, String dictType);
+
+    int permitLimit(String caller, String dictType);
+
+    /**
+     * 批量把 code 翻译为 label，使用本地索引；索引不存在时全量拉取一次该字典。
+     */
+    DictTranslateVO translate(List<DictTranslateRequestDTO.Item> items, String traceId);
 }
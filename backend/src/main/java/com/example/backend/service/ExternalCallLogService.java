@@ -1,8 +1,22 @@
 package com.example.backend.service;
 
+import com.example.backend.common.RawJson;
+import com.example.backend.dto.CallLogQueryDTO;
 import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.vo.CallLogVO;
+import com.example.backend.vo.PageVO;
 
 public interface ExternalCallLogService {
 
     void saveLog(ExternalCallLog log);
+
+    /**
+     * 带上游响应体的日志：按采集策略记录响应体前缀或指纹。
+     */
+    void saveResponseLog(ExternalCallLog log, RawJson body);
+
+    /**
+     * 按 traceId / service / success / 时间窗口查询，按时间倒序键集分页。traceId 与 service 至少指定一个。
+     */
+    PageVO<CallLogVO> query(CallLogQueryDTO query);
 }
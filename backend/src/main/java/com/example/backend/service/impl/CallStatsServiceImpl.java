@@ -0,0 +1,107 @@
+package com.example.backend.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.example.backend.calllog.CallStatsAggregator;
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallStats;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.exception.ErrorCode;
+import com.example.backend.mapper.ExternalCallStatsMapper;
+import com.example.backend.service.CallStatsService;
+import com.example.backend.vo.CallStatsVO;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class CallStatsServiceImpl implements CallStatsService {
+
+    private final ExternalCallStatsMapper externalCallStatsMapper;
+    private final ThirdPartyProperties properties;
+
+    public CallStatsServiceImpl(ExternalCallStatsMapper externalCallStatsMapper, ThirdPartyProperties properties) {
+        this.externalCallStatsMapper = externalCallStatsMapper;
+        this.properties = properties;
+    }
+
+    @Override
+    public List<CallStatsVO> query(String service, LocalDateTime from, LocalDateTime to) {
+        int maxMinutes = properties.getCallLog().getStats().getMaxQueryMinutes();
+        if (!from.isBefore(to) || Duration.between(from, to).toMinutes() > maxMinutes) {
+            throw new BusinessException(ErrorCode.PARAM_VALIDATION_FAIL.getCode(),
+                    "查询区间必须大于0且不超过" + maxMinutes + "分钟");
+        }
+        LambdaQueryWrapper<ExternalCallStats> wrapper = Wrappers.<ExternalCallStats>lambdaQuery()
+                .eq(StringUtils.hasText(service), ExternalCallStats::getService, service)
+                .ge(ExternalCallStats::getMinuteStart, from)
+                .lt(ExternalCallStats::getMinuteStart, to)
+                .orderByAsc(ExternalCallStats::getMinuteStart);
+
+        Map<String, Merged> merged = new LinkedHashMap<>();
+        for (ExternalCallStats row : externalCallStatsMapper.selectList(wrapper)) {
+            merged.computeIfAbsent(row.getMinuteStart() + "|" + row.getService(), k -> new Merged(row)).add(row);
+        }
+        List<CallStatsVO> result = new ArrayList<>(merged.size());
+        for (Merged m : merged.values()) {
+            result.add(m.toVO());
+        }
+        return result;
+    }
+
+    /**
+     * 同一 (分钟, 服务) 的多行：计数相加，直方图合并后重新计算分位数。
+     */
+    private static final class Merged {
+
+        private final LocalDateTime minute;
+        private final String service;
+        private final Map<Integer, Long> statusCounts = new TreeMap<>();
+        private Histogram histogram;
+        private long callCount;
+        private long errorCount;
+        private long totalMs;
+
+        private Merged(ExternalCallStats first) {
+            this.minute = first.getMinuteStart();
+            this.service = first.getService();
+        }
+
+        private void add(ExternalCallStats row) {
+            callCount += row.getCallCount();
+            errorCount += row.getErrorCount();
+            totalMs += row.getTotalMs();
+            statusCounts.merge(row.getHttpStatus(), row.getCallCount(), Long::sum);
+            Histogram decoded = CallStatsAggregator.decode(row.getHistogram());
+            if (histogram == null) {
+                histogram = decoded;
+            } else {
+                histogram.add(decoded);
+            }
+        }
+
+        private CallStatsVO toVO() {
+            CallStatsVO vo = new CallStatsVO();
+            vo.setMinute(minute);
+            vo.setService(service);
+            vo.setCallCount(callCount);
+            vo.setErrorCount(errorCount);
+            vo.setErrorRate(callCount == 0 ? 0 : (double) errorCount / callCount);
+            vo.setAvgMs(callCount == 0 ? 0 : totalMs / callCount);
+            vo.setP50Ms(histogram.getValueAtPercentile(50));
+            vo.setP95Ms(histogram.getValueAtPercentile(95));
+            vo.setP99Ms(histogram.getValueAtPercentile(99));
+            vo.setMaxMs(histogram.getMaxValue());
+            vo.setStatusCounts(statusCounts);
+            return vo;
+        }
+    }
+}
@@ -1,25 +1,74 @@
 package com.example.backend.service.impl;
 
+import com.example.backend.cache.DictCacheKey;
+import com.example.backend.calllog.CallStatsAggregator;
+import com.example.backend.cache.DictIndex;
+import com.example.backend.common.RawJson;
+import com.example.backend.cache.DictResponseCache;
+import com.example.backend.cache.DictSnapshot;
+import com.example.backend.cache.DictSnapshotStore;
 import com.example.backend.config.ThirdPartyProperties;
 import com.example.backend.dto.DictQueryRequestDTO;
+import com.example.backend.dto.DictTranslateRequestDTO;
 import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.exception.CircuitBreakerOpenException;
+import com.example.backend.exception.ErrorCode;
 import com.example.backend.exception.RateLimitException;
+import com.example.backend.ratelimit.KeyedRateLimiter;
+import com.example.backend.resilience.AbortHandle;
+import com.example.backend.resilience.AdaptiveConcurrencyLimiter;
+import com.example.backend.resilience.CircuitBreaker;
+import com.example.backend.resilience.Hedger;
+import com.example.backend.resilience.RetryEngine;
+import com.example.backend.resilience.SingleFlight;
+import com.example.backend.resilience.UpstreamExecutor;
 import com.example.backend.service.DictQueryService;
 import com.example.backend.service.ExternalCallLogService;
 import com.example.backend.util.ThirdPartySignatureUtil;
-import com.google.common.util.concurrent.RateLimiter;
+import com.example.backend.vo.DictBatchItemVO;
+import com.example.backend.vo.DictTranslateVO;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 @Slf4j
 @Service
@@ -32,72 +81,558 @@ public class DictQueryServiceImpl implements DictQueryService {
     private final RestTemplate restTemplate;
     private final ThirdPartySignatureUtil signatureUtil;
     private final ExternalCallLogService externalCallLogService;
-    private final RateLimiter rateLimitBucket;
+    private final KeyedRateLimiter rateLimitBucket;
+    private final DictResponseCache dictResponseCache;
+    private final DictSnapshotStore dictSnapshotStore;
+    private final UpstreamExecutor upstreamExecutor;
+    private final RetryEngine retryEngine;
+    private final CircuitBreaker circuitBreaker;
+    private final Hedger hedger;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final SingleFlight<DictCacheKey, RawJson> singleFlight;
+    private final SingleFlight<String, DictIndex> indexFlight;
+    private final ThreadPoolExecutor indexLoader;
+    private final CallStatsAggregator callStats;
+    private final MeterRegistry meterRegistry;
 
     public DictQueryServiceImpl(ThirdPartyProperties properties,
                                 RestTemplate restTemplate,
                                 ThirdPartySignatureUtil signatureUtil,
                                 ExternalCallLogService externalCallLogService,
-                                RateLimiter rateLimitBucket) {
+                                KeyedRateLimiter rateLimitBucket,
+                                DictResponseCache dictResponseCache,
+                                DictSnapshotStore dictSnapshotStore,
+                                UpstreamExecutor upstreamExecutor,
+                                CallStatsAggregator callStats,
+                                MeterRegistry meterRegistry) {
         this.properties = properties;
         this.restTemplate = restTemplate;
         this.signatureUtil = signatureUtil;
         this.externalCallLogService = externalCallLogService;
         this.rateLimitBucket = rateLimitBucket;
+        this.dictResponseCache = dictResponseCache;
+        this.dictSnapshotStore = dictSnapshotStore;
+        this.upstreamExecutor = upstreamExecutor;
+        this.callStats = callStats;
+        this.singleFlight = new SingleFlight<>("dict.singleflight", meterRegistry);
+        this.indexFlight = new SingleFlight<>("dict.index.singleflight", meterRegistry);
+        // 索引全量拉取会阻塞等待限流令牌，放在独立线程池，不占用请求线程和上游调用线程池
+        ThirdPartyProperties.Index indexConfig = properties.getIndex();
+        this.indexLoader = new ThreadPoolExecutor(
+                indexConfig.getLoaderPoolSize(),
+                indexConfig.getLoaderPoolSize(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(indexConfig.getLoaderQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("dict-index-loader-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+        this.retryEngine = new RetryEngine("dict", properties.getHttp().getRetry(), meterRegistry);
+        this.circuitBreaker = new CircuitBreaker("dict", properties.getCircuitBreaker(), meterRegistry,
+                this::onCircuitTransition);
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter("dict", properties.getConcurrency(), meterRegistry);
+        this.hedger = new Hedger("dict", properties.getHedging(), upstreamExecutor, meterRegistry);
     }
 
     @Override
     public String query(DictQueryRequestDTO request, String traceId) {
-        if (!rateLimitBucket.tryAcquire()) {
-            saveRateLimitLog(traceId);
-            throw new RateLimitException("请求频率超过限制，请稍后再试");
+        return text(queryRaw(request, traceId));
+    }
+
+    @Override
+    public RawJson queryRaw(DictQueryRequestDTO request, String traceId) {
+        DictSnapshot snapshot = dictSnapshotStore.get(request.getDictType());
+        if (snapshot != null) {
+            dictSnapshotStore.recordServed(request.getDictType());
+            return RawJson.of(snapshot.page(request.getPageNum(), request.getPageSize()));
         }
 
-        int maxAttempts = properties.getHttp().getRetry().getMaxAttempts();
-        long initialDelay = properties.getHttp().getRetry().getInitialDelay();
-        double multiplier = properties.getHttp().getRetry().getMultiplier();
-        long maxDelay = properties.getHttp().getRetry().getMaxDelay();
+        DictCacheKey cacheKey = DictCacheKey.of(request);
+        DictResponseCache.Lookup cached = dictResponseCache.lookup(cacheKey);
+        if (cached != null && cached.getFreshness() != DictResponseCache.Freshness.STALE_IF_ERROR) {
+            log.debug("字典缓存命中: {}, freshness={}", cacheKey, cached.getFreshness());
+            return cached.getBody();
+        }
 
-        int attempt = 1;
-        long delay = initialDelay;
+        try {
+            return singleFlight.execute(cacheKey, () ->
+                    cacheResponse(cacheKey, queryUpstream(request, traceId, cached)));
+        } catch (RuntimeException e) {
+            if (cached != null) {
+                log.warn("第三方接口调用失败，返回过期缓存: {}, error={}", cacheKey, e.getMessage());
+                return cached.getBody();
+            }
+            throw e;
+        }
+    }
 
-        while (attempt <= maxAttempts) {
-            try {
-                return doQuery(request, traceId, attempt);
-            } catch (HttpStatusCodeException e) {
-                log.warn("第三方接口调用失败(attempt {}): status={}", attempt, e.getStatusCode());
-                int statusCode = e.getStatusCode().value();
-                callLogWithException(traceId, attempt, statusCode, e.getMessage());
-                if (attempt >= maxAttempts) {
-                    throw e;
+    @Override
+    public int remainingPermits(String caller, String dictType) {
+        return rateLimitBucket.remaining(rateLimitKey(caller, dictType));
+    }
+
+    @Override
+    public int permitLimit(String caller, String dictType) {
+        return rateLimitBucket.limit(rateLimitKey(caller, dictType));
+    }
+
+    /**
+     * 限流 key：调用方 + AppKey + dictType；调用方未知时只受全局限流约束。
+     */
+    private String rateLimitKey(String caller, String dictType) {
+        if (caller == null || caller.isEmpty()) {
+            return null;
+        }
+        return dictType == null
+                ? caller + "|" + properties.getAppKey()
+                : caller + "|" + properties.getAppKey() + "|" + dictType;
+    }
+
+    @Override
+    public DictTranslateVO translate(List<DictTranslateRequestDTO.Item> items, String traceId) {
+        ThirdPartyProperties.Index indexConfig = properties.getIndex();
+        int codeCount = items.stream().mapToInt(item -> item.getCodes().size()).sum();
+        if (codeCount > indexConfig.getMaxCodesPerRequest()) {
+            throw new BusinessException(ErrorCode.PARAM_VALIDATION_FAIL.getCode(),
+                    "codes总数不能超过" + indexConfig.getMaxCodesPerRequest());
+        }
+
+        // 先为所有 dictType 发起加载，再在同一个截止时间内等待，总耗时不超过 loadTimeout
+        Map<String, CompletableFuture<DictIndex>> loading = new LinkedHashMap<>();
+        for (DictTranslateRequestDTO.Item item : items) {
+            loading.computeIfAbsent(item.getDictType(), dictType -> indexOf(dictType, traceId));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(indexConfig.getLoadTimeout());
+
+        Map<String, Map<String, String>> labels = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        int hits = 0;
+        for (DictTranslateRequestDTO.Item item : items) {
+            String dictType = item.getDictType();
+            DictIndex index = awaitIndex(dictType, loading.get(dictType), deadline);
+            if (index == null) {
+                if (!failed.contains(dictType)) {
+                    failed.add(dictType);
                 }
-                try {
-                    Thread.sleep(delay);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("重试被中断", ie);
+                continue;
+            }
+            Map<String, String> translated = labels.computeIfAbsent(dictType, k -> new LinkedHashMap<>());
+            for (String code : item.getCodes()) {
+                String label = index.label(code);
+                translated.put(code, label);
+                if (label != null) {
+                    hits++;
                 }
-                delay = (long) (delay * multiplier);
-                delay = Math.min(delay, maxDelay);
-                attempt++;
-            } catch (RestClientException e) {
-                log.warn("第三方接口调用失败(attempt {}): {}", attempt, e.getMessage());
-                callLogWithException(traceId, attempt, null, e.getMessage());
-                if (attempt >= maxAttempts) {
-                    throw e;
+            }
+        }
+        meterRegistry.counter("dict.translate.codes", "result", "hit").increment(hits);
+        meterRegistry.counter("dict.translate.codes", "result", "miss").increment(codeCount - hits);
+
+        DictTranslateVO vo = new DictTranslateVO();
+        vo.setLabels(labels);
+        vo.setFailedDictTypes(failed);
+        return vo;
+    }
+
+    /**
+     * 已有索引直接返回，超过 refreshAfter 时顺带在后台重新加载；没有索引时在后台加载。
+     */
+    private CompletableFuture<DictIndex> indexOf(String dictType, String traceId) {
+        DictIndex index = dictSnapshotStore.index(dictType);
+        if (index != null) {
+            if (dictSnapshotStore.needsRefresh(dictType)) {
+                loadIndex(dictType, traceId).whenComplete((loaded, e) -> {
+                    if (e != null) {
+                        log.warn("字典索引后台刷新失败，继续使用旧索引: dictType={}, error={}", dictType, e.getMessage());
+                    }
+                });
+            }
+            return CompletableFuture.completedFuture(index);
+        }
+        if (!properties.getIndex().isEnabled()) {
+            CompletableFuture<DictIndex> disabled = new CompletableFuture<>();
+            disabled.completeExceptionally(new IllegalStateException("字典索引未开启: " + dictType));
+            return disabled;
+        }
+        return loadIndex(dictType, traceId);
+    }
+
+    private CompletableFuture<DictIndex> loadIndex(String dictType, String traceId) {
+        return indexFlight.executeAsync(dictType, () -> CompletableFuture.supplyAsync(
+                () -> dictSnapshotStore.loadIndex(dictType, pageNum -> fetchFullPage(dictType, pageNum, traceId)),
+                indexLoader));
+    }
+
+    /**
+     * 最多等到 deadline；超时或加载失败返回 null，超时的加载在后台继续，完成后供之后的请求使用。
+     */
+    private DictIndex awaitIndex(String dictType, CompletableFuture<DictIndex> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            meterRegistry.counter("dict.translate.load.timeout").increment();
+            log.warn("字典索引加载超时，本次按失败返回: dictType={}", dictType);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("字典索引加载失败: dictType={}, error={}", dictType, cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexLoader.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<String> queryAsync(DictQueryRequestDTO request, String traceId) {
+        return queryAsync(request, traceId, 0).thenApply(DictQueryServiceImpl::text);
+    }
+
+    @Override
+    public CompletableFuture<RawJson> queryRawAsync(DictQueryRequestDTO request, String traceId) {
+        return queryAsync(request, traceId, 0);
+    }
+
+    /**
+     * 批量查询：最多 maxConcurrency 路并行，每路完成一项后再取下一项；
+     * 需要访问上游的项最多等待 permitTimeout 获取限流令牌（由定时器延后发起，不阻塞线程），单项失败不影响其它项。
+     */
+    @Override
+    public CompletableFuture<List<DictBatchItemVO>> queryBatch(List<DictQueryRequestDTO> requests, String traceId) {
+        ThirdPartyProperties.Batch batch = properties.getBatch();
+        DictBatchItemVO[] results = new DictBatchItemVO[requests.size()];
+        AtomicInteger next = new AtomicInteger();
+        int lanes = Math.max(1, Math.min(batch.getMaxConcurrency(), requests.size()));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            futures[i] = runBatchLane(requests, results, next, traceId, batch.getPermitTimeout());
+        }
+        return CompletableFuture.allOf(futures).thenApply(v -> Arrays.asList(results));
+    }
+
+    private CompletableFuture<Void> runBatchLane(List<DictQueryRequestDTO> requests, DictBatchItemVO[] results,
+                                                 AtomicInteger next, String traceId, long permitTimeout) {
+        int index = next.getAndIncrement();
+        if (index >= requests.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        DictQueryRequestDTO request = requests.get(index);
+        CompletableFuture<RawJson> future;
+        try {
+            future = queryAsync(request, traceId, permitTimeout);
+        } catch (RuntimeException e) {
+            future = UpstreamExecutor.failed(e);
+        }
+        return future.handle((body, ex) -> {
+            results[index] = toBatchItem(request, body, ex == null ? null : UpstreamExecutor.unwrap(ex));
+            return null;
+        }).thenCompose(v -> runBatchLane(requests, results, next, traceId, permitTimeout));
+    }
+
+    private DictBatchItemVO toBatchItem(DictQueryRequestDTO request, RawJson body, Throwable error) {
+        DictBatchItemVO item = new DictBatchItemVO();
+        item.setDictType(request.getDictType());
+        item.setPageNum(request.getPageNum());
+        item.setPageSize(request.getPageSize());
+        if (error == null) {
+            item.setCode(0);
+            item.setMessage("ok");
+            item.setData(text(body));
+        } else if (error instanceof RateLimitException) {
+            item.setCode(ErrorCode.RATE_LIMIT_EXCEEDED.getCode());
+            item.setMessage(error.getMessage());
+        } else if (error instanceof CircuitBreakerOpenException) {
+            item.setCode(ErrorCode.UPSTREAM_CIRCUIT_OPEN.getCode());
+            item.setMessage(error.getMessage());
+        } else if (error instanceof BusinessException) {
+            item.setCode(((BusinessException) error).getCode());
+            item.setMessage(error.getMessage());
+        } else {
+            log.warn("批量字典查询单项失败: {}, error={}", request.getDictType(), error.getMessage());
+            item.setCode(ErrorCode.INTERNAL_ERROR.getCode());
+            item.setMessage("第三方接口调用失败");
+        }
+        return item;
+    }
+
+    private CompletableFuture<RawJson> queryAsync(DictQueryRequestDTO request, String traceId, long permitTimeout) {
+        DictSnapshot snapshot = dictSnapshotStore.get(request.getDictType());
+        if (snapshot != null) {
+            dictSnapshotStore.recordServed(request.getDictType());
+            return CompletableFuture.completedFuture(
+                    RawJson.of(snapshot.page(request.getPageNum(), request.getPageSize())));
+        }
+
+        DictCacheKey cacheKey = DictCacheKey.of(request);
+        DictResponseCache.Lookup cached = dictResponseCache.lookup(cacheKey);
+        if (cached != null && cached.getFreshness() != DictResponseCache.Freshness.STALE_IF_ERROR) {
+            log.debug("字典缓存命中: {}, freshness={}", cacheKey, cached.getFreshness());
+            return CompletableFuture.completedFuture(cached.getBody());
+        }
+
+        return singleFlight.executeAsync(cacheKey, () -> {
+            long waitMs = reservePermit(request, traceId, permitTimeout);
+            Supplier<CompletableFuture<UpstreamResponse>> call = () -> callWithRetryAsync(request, traceId, cached);
+            // 需要等待令牌时由定时器延后发起，不占用当前线程
+            CompletableFuture<UpstreamResponse> upstream = waitMs > 0
+                    ? upstreamExecutor.schedule(call, waitMs)
+                    : call.get();
+            return upstream.thenApply(response -> cacheResponse(cacheKey, response));
+        }).handle((body, ex) -> {
+            if (ex == null) {
+                return body;
+            }
+            Throwable cause = UpstreamExecutor.unwrap(ex);
+            if (cached != null) {
+                log.warn("第三方接口调用失败，返回过期缓存: {}, error={}", cacheKey, cause.getMessage());
+                return cached.getBody();
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    /**
+     * 后台刷新热点/已过期字典。每个 key 只调用一次上游、不走重试，失败时保留旧值；
+     * 只使用限流器当前空闲的令牌，且每轮数量有上限，避免挤占前台请求。
+     * 令牌在 single-flight 的 leader 内获取：刷新合并进前台进行中的调用时不消耗令牌；
+     * 余量不足时 leader 不调用上游，直接返回旧值，同一 key 上合并进来的前台请求也拿到旧值。
+     */
+    @Scheduled(fixedDelayString = "${third-party.cache.refresh.interval:1000}")
+    public void refreshHotEntries() {
+        ThirdPartyProperties.Cache.Refresh refresh = properties.getCache().getRefresh();
+        if (!refresh.isEnabled()) {
+            return;
+        }
+        AtomicBoolean exhausted = new AtomicBoolean();
+        for (DictCacheKey cacheKey : dictResponseCache.refreshCandidates(refresh.getMaxPerRun())) {
+            String traceId = UUID.randomUUID().toString().replace("-", "");
+            DictQueryRequestDTO request = toRequest(cacheKey);
+            DictResponseCache.Lookup cached = dictResponseCache.peek(cacheKey);
+            try {
+                singleFlight.execute(cacheKey, () -> {
+                    if (!rateLimitBucket.tryAcquireWithHeadroom(refresh.getReservedRatio())) {
+                        exhausted.set(true);
+                        if (cached == null) {
+                            throw new RateLimitException("限流器余量不足，跳过字典刷新");
+                        }
+                        return cached.getBody();
+                    }
+                    return cacheResponse(cacheKey, guardedQuery(request, traceId, 1, cached));
+                });
+                if (exhausted.get()) {
+                    log.debug("限流器余量不足，跳过本轮字典刷新");
+                    return;
                 }
-                try {
-                    Thread.sleep(delay);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("重试被中断", ie);
+                refreshCounter("success").increment();
+            } catch (RuntimeException e) {
+                if (exhausted.get()) {
+                    log.debug("限流器余量不足，跳过本轮字典刷新");
+                    return;
                 }
-                delay = (long) (delay * multiplier);
-                delay = Math.min(delay, maxDelay);
-                attempt++;
+                refreshCounter("failure").increment();
+                log.warn("后台刷新字典失败: {}, error={}", cacheKey, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 定期全量拉取配置的 dictType 并原子替换快照。每页调用前等待限流令牌，
+     * 等不到则放弃本轮，继续使用旧快照。
+     */
+    @Scheduled(fixedDelayString = "${third-party.snapshot.refresh-interval:300000}")
+    public void refreshSnapshots() {
+        ThirdPartyProperties.Snapshot snapshotConfig = properties.getSnapshot();
+        if (!snapshotConfig.isEnabled()) {
+            return;
+        }
+        for (String dictType : snapshotConfig.getDictTypes()) {
+            String traceId = UUID.randomUUID().toString().replace("-", "");
+            try {
+                dictSnapshotStore.refresh(dictType, pageNum -> fetchFullPage(dictType, pageNum, traceId));
+                meterRegistry.counter("dict.snapshot.refresh", "result", "success").increment();
+            } catch (RuntimeException e) {
+                meterRegistry.counter("dict.snapshot.refresh", "result", "failure").increment();
+                log.warn("字典快照刷新失败，继续使用旧快照: dictType={}, error={}", dictType, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 全量拉取（快照/索引）的单页请求：等待全局限流令牌，超时则放弃本次拉取。
+     */
+    private String fetchFullPage(String dictType, int pageNum, String traceId) {
+        ThirdPartyProperties.Snapshot snapshotConfig = properties.getSnapshot();
+        if (!rateLimitBucket.tryAcquire(snapshotConfig.getAcquireTimeout(), TimeUnit.MILLISECONDS)) {
+            throw new RateLimitException("全量拉取字典等待限流令牌超时: " + dictType);
+        }
+        DictQueryRequestDTO request = new DictQueryRequestDTO();
+        request.setDictType(dictType);
+        request.setPageNum(pageNum);
+        request.setPageSize(snapshotConfig.getPageSize());
+        return text(callWithRetry(request, traceId, null).body);
+    }
+
+    private UpstreamResponse queryUpstream(DictQueryRequestDTO request, String traceId,
+                                           DictResponseCache.Lookup cached) {
+        acquirePermit(request, traceId, 0);
+        return callWithRetry(request, traceId, cached);
+    }
+
+    /**
+     * 写入缓存并返回响应体；304 时 body 为沿用的旧值，写入即刷新其 TTL。
+     * 上游业务错误（HTTP 200 且 success=false）原样返回但不缓存，避免把临时错误缓存一个 TTL。
+     */
+    private RawJson cacheResponse(DictCacheKey cacheKey, UpstreamResponse response) {
+        if (response.businessFailure) {
+            log.warn("第三方接口返回业务错误，不写入缓存: {}", cacheKey);
+            return response.body;
+        }
+        dictResponseCache.put(cacheKey, response.body, response.etag, response.lastModified);
+        return response.body;
+    }
+
+    /**
+     * 预占限流令牌但不等待。
+     *
+     * @return 令牌可用前需等待的毫秒数（向上取整）；超过 timeoutMs 时记日志并抛 RateLimitException
+     */
+    private long reservePermit(DictQueryRequestDTO request, String traceId, long timeoutMs) {
+        long waitNanos = rateLimitBucket.reserve(rateLimitKey(MDC.get("caller"), request.getDictType()), timeoutMs);
+        if (waitNanos < 0) {
+            saveRateLimitLog(traceId);
+            throw new RateLimitException("请求频率超过限制，请稍后再试");
+        }
+        return (waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private void acquirePermit(DictQueryRequestDTO request, String traceId, long timeoutMs) {
+        if (!rateLimitBucket.tryAcquire(rateLimitKey(MDC.get("caller"), request.getDictType()), timeoutMs)) {
+            saveRateLimitLog(traceId);
+            throw new RateLimitException("请求频率超过限制，请稍后再试");
+        }
+    }
+
+    private UpstreamResponse callWithRetry(DictQueryRequestDTO request, String traceId,
+                                           DictResponseCache.Lookup cached) {
+        return retryEngine.execute(attempt -> hedgedQuery(request, traceId, attempt, cached),
+                (e, attempt) -> recordAttemptFailure(e, traceId, attempt));
+    }
+
+    private CompletableFuture<UpstreamResponse> callWithRetryAsync(DictQueryRequestDTO request, String traceId,
+                                                                   DictResponseCache.Lookup cached) {
+        return retryEngine.executeAsync(
+                attempt -> guardedQueryAsync(request, traceId, attempt, cached),
+                (e, attempt) -> recordAttemptFailure(e, traceId, attempt),
+                upstreamExecutor);
+    }
+
+    /**
+     * 经过并发限制与熔断器的单次上游调用：并发已满且排队超时、或熔断打开时直接失败，不访问上游也不写调用日志。
+     */
+    private UpstreamResponse guardedQuery(DictQueryRequestDTO request, String traceId, int attempt,
+                                          DictResponseCache.Lookup cached) {
+        if (!concurrencyLimiter.tryAcquire()) {
+            throw new RateLimitException("上游并发已达上限，请稍后再试");
+        }
+        long startNanos = System.nanoTime();
+        UpstreamResponse response = null;
+        Throwable error = null;
+        boolean permitted = false;
+        try {
+            checkCircuitBreaker();
+            permitted = true;
+            response = doQuery(request, traceId, attempt, cached);
+            return response;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            recordUpstreamResult(response, error, startNanos, permitted);
+        }
+    }
+
+    /**
+     * 开启对冲时，首个请求超过延迟阈值未返回则补发一个，先成功者为准。
+     */
+    private UpstreamResponse hedgedQuery(DictQueryRequestDTO request, String traceId, int attempt,
+                                         DictResponseCache.Lookup cached) {
+        if (!hedger.isEnabled()) {
+            return guardedQuery(request, traceId, attempt, cached);
+        }
+        try {
+            return hedger.execute(() -> guardedQuery(request, traceId, attempt, cached)).join();
+        } catch (CompletionException e) {
+            Throwable cause = UpstreamExecutor.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<UpstreamResponse> guardedQueryAsync(DictQueryRequestDTO request, String traceId,
+                                                                  int attempt, DictResponseCache.Lookup cached) {
+        return hedger.execute(() -> guardedQuery(request, traceId, attempt, cached));
+    }
+
+    private void checkCircuitBreaker() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new CircuitBreakerOpenException("第三方服务熔断中，请稍后再试");
+        }
+    }
+
+    /**
+     * 只有可重试的错误（5xx、超时、IO 异常等）计为失败；4xx 说明上游正常，按成功处理。
+     * 分钟汇总与调用日志的口径一致，业务错误也计为失败。
+     * 被对冲中止或被熔断拦截的调用不计入熔断器与并发限制的采样，也不计入分钟汇总；
+     * 已取得熔断器许可的调用归还半开探测名额。
+     */
+    private void recordUpstreamResult(UpstreamResponse response, Throwable error, long startNanos,
+                                      boolean permitted) {
+        long durationNanos = System.nanoTime() - startNanos;
+        if (AbortHandle.isCurrentAborted() || (error != null && !(error instanceof RestClientException))) {
+            concurrencyLimiter.onIgnore();
+            if (permitted) {
+                circuitBreaker.onIgnored();
+            }
+            return;
+        }
+        int status = response != null ? response.statusCode
+                : error instanceof HttpStatusCodeException ? ((HttpStatusCodeException) error).getRawStatusCode() : 0;
+        boolean success = error == null && response != null && !response.businessFailure;
+        callStats.record(SERVICE_NAME, status, success, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        boolean failure = error != null && retryEngine.isRetryable((RestClientException) error);
+        circuitBreaker.onResult(failure, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        if (failure) {
+            concurrencyLimiter.onDropped(durationNanos);
+        } else {
+            concurrencyLimiter.onSuccess(durationNanos);
+        }
+    }
+
+    private void onCircuitTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        log.warn("第三方接口熔断器状态变更: {} -> {}", from, to);
+        ExternalCallLog callLog = buildLog(MDC.get("traceId"), 0);
+        callLog.setSuccess(to == CircuitBreaker.State.CLOSED ? 1 : 0);
+        callLog.setExceptionType("CIRCUIT_BREAKER");
+        callLog.setExceptionMessage(from + " -> " + to);
+        callLog.setCreatedAt(LocalDateTime.now());
+        externalCallLogService.saveLog(callLog);
+    }
+
+    /**
+     * 非 HTTP 状态码错误（IO、超时等）已在 doQuery 中连同耗时记录过日志，这里不再重复写。
+     */
+    private void recordAttemptFailure(RestClientException e, String traceId, int attempt) {
+        if (e instanceof HttpStatusCodeException) {
+            HttpStatusCodeException statusException = (HttpStatusCodeException) e;
+            log.warn("第三方接口调用失败(attempt {}): status={}", attempt, statusException.getStatusCode());
+            callLogWithException(traceId, attempt, statusException.getStatusCode().value(), e.getMessage());
+        } else {
+            log.warn("第三方接口调用失败(attempt {}): {}", attempt, e.getMessage());
         }
-        throw new RuntimeException("第三方接口调用失败，已达到最大重试次数");
     }
 
     private void callLogWithException(String traceId, int attempt, Integer httpStatus, String message) {
@@ -110,7 +645,11 @@ public class DictQueryServiceImpl implements DictQueryService {
         externalCallLogService.saveLog(callLog);
     }
 
-    private String doQuery(DictQueryRequestDTO request, String traceId, int attempt) {
+    /**
+     * 缓存中有上游校验器时发条件请求；上游返回 304 则沿用缓存中的响应体。
+     */
+    private UpstreamResponse doQuery(DictQueryRequestDTO request, String traceId, int attempt,
+                                     DictResponseCache.Lookup cached) {
         long startTime = System.currentTimeMillis();
         ExternalCallLog callLog = buildLog(traceId, attempt);
 
@@ -132,33 +671,59 @@ public class DictQueryServiceImpl implements DictQueryService {
             headers.set("AppKey", properties.getAppKey());
             headers.set("Signature", signature);
             headers.set("Timestamp", timestamp);
+            if (properties.getHttp().isCompression()) {
+                headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+            }
+            boolean conditional = cached != null && cached.hasValidator();
+            if (conditional) {
+                if (cached.getEtag() != null) {
+                    headers.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+                }
+                if (cached.getLastModified() != null) {
+                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+                }
+            }
 
             HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
 
-            ResponseEntity<String> response = restTemplate.exchange(
+            UpstreamResponse response = restTemplate.execute(
                     url,
                     HttpMethod.GET,
-                    entity,
-                    String.class
+                    restTemplate.httpEntityCallback(entity),
+                    DictQueryServiceImpl::readResponse
             );
 
-            int statusCode = response.getStatusCode().value();
+            int statusCode = response.statusCode;
             log.info("第三方接口响应状态码: {}, attempt: {}", statusCode, attempt);
+            boolean notModified = conditional && statusCode == HttpStatus.NOT_MODIFIED.value();
+            boolean success = notModified || (statusCode >= 200 && statusCode < 300);
 
             callLog.setHttpStatus(statusCode);
-            callLog.setSuccess(statusCode >= 200 && statusCode < 300 ? 1 : 0);
+            callLog.setSuccess(success ? 1 : 0);
             callLog.setDurationMs(System.currentTimeMillis() - startTime);
             callLog.setCreatedAt(LocalDateTime.now());
 
-            String body = response.getBody();
-            if (body != null) {
-                callLog.setExceptionMessage(body.length() > 500 ? body.substring(0, 500) : body);
+            RawJson body = response.body;
+            callLog.setWireBytes(response.wireBytes);
+            callLog.setDecodedBytes(body != null ? (long) body.length() : 0L);
+            if (!success) {
+                callLog.setExceptionType("THIRD_PARTY_ERROR");
+            } else if (response.businessFailure) {
+                // HTTP 200 的业务错误：照常返回给调用方，但日志按失败记录并保留响应体前缀
+                callLog.setSuccess(0);
+                callLog.setExceptionType("THIRD_PARTY_BUSINESS_ERROR");
             }
+            externalCallLogService.saveResponseLog(callLog, body);
 
-            externalCallLogService.saveLog(callLog);
-
-            if (statusCode >= 200 && statusCode < 300) {
-                return body;
+            if (conditional && success) {
+                meterRegistry.counter("dict.upstream.revalidations",
+                        "result", notModified ? "not_modified" : "modified").increment();
+            }
+            if (notModified) {
+                return response.revalidated(cached);
+            }
+            if (success) {
+                return response;
             }
 
             throw new RestClientException("第三方接口返回非成功状态: " + statusCode);
@@ -166,9 +731,13 @@ public class DictQueryServiceImpl implements DictQueryService {
         } catch (HttpStatusCodeException e) {
             throw e;
         } catch (RestClientException e) {
+            if (callLog.getHttpStatus() != null) {
+                // 非成功状态码，已随响应写过日志
+                throw e;
+            }
             callLog.setSuccess(0);
             callLog.setDurationMs(System.currentTimeMillis() - startTime);
-            callLog.setExceptionType("THIRD_PARTY_ERROR");
+            callLog.setExceptionType(AbortHandle.isCurrentAborted() ? "HEDGE_CANCELLED" : "THIRD_PARTY_ERROR");
             callLog.setExceptionMessage(e.getMessage());
             callLog.setCreatedAt(LocalDateTime.now());
             externalCallLogService.saveLog(callLog);
@@ -185,6 +754,89 @@ public class DictQueryServiceImpl implements DictQueryService {
         }
     }
 
+    /**
+     * 读取上游响应体，不解码成 String。gzip/deflate 响应边读边解压，不缓存压缩后的字节；
+     * 未压缩且已知 Content-Length 时一次性读入大小正好的数组。同时统计线上传输的字节数。
+     */
+    private static UpstreamResponse readResponse(ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        long contentLength = headers.getContentLength();
+        String encoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        byte[] bytes;
+        CountingInputStream wire = new CountingInputStream(response.getBody());
+        try (InputStream in = decoding(wire, encoding, contentLength)) {
+            if (in == null) {
+                bytes = new byte[0];
+            } else if (in == wire && contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                bytes = new byte[(int) contentLength];
+                int read = 0;
+                while (read < bytes.length) {
+                    int n = in.read(bytes, read, bytes.length - read);
+                    if (n < 0) {
+                        throw new EOFException("第三方响应体不完整: " + read + "/" + contentLength);
+                    }
+                    read += n;
+                }
+            } else {
+                bytes = StreamUtils.copyToByteArray(in);
+            }
+        }
+        return new UpstreamResponse(response.getRawStatusCode(),
+                bytes.length == 0 ? null : RawJson.wrap(bytes), wire.getCount(),
+                headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private static InputStream decoding(InputStream wire, String encoding, long contentLength) throws IOException {
+        if (encoding == null || "identity".equalsIgnoreCase(encoding.trim())) {
+            return wire;
+        }
+        if (contentLength == 0) {
+            return null;
+        }
+        String normalized = encoding.trim().toLowerCase();
+        if ("gzip".equals(normalized) || "x-gzip".equals(normalized)) {
+            return new GZIPInputStream(wire, 8192);
+        }
+        if ("deflate".equals(normalized)) {
+            return new InflaterInputStream(wire);
+        }
+        throw new IOException("不支持的响应编码: " + encoding);
+    }
+
+    private static final class UpstreamResponse {
+
+        private final int statusCode;
+        private final RawJson body;
+        private final long wireBytes;
+        private final String etag;
+        private final String lastModified;
+        /** HTTP 200 且 success=false；304 沿用的缓存响应体不会是业务错误 */
+        private final boolean businessFailure;
+
+        private UpstreamResponse(int statusCode, RawJson body, long wireBytes, String etag, String lastModified) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.wireBytes = wireBytes;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.businessFailure = statusCode != HttpStatus.NOT_MODIFIED.value()
+                    && body != null && body.isBusinessFailure();
+        }
+
+        /**
+         * 304：沿用缓存的响应体；上游未重新下发的校验器保持原值。
+         */
+        private UpstreamResponse revalidated(DictResponseCache.Lookup cached) {
+            return new UpstreamResponse(statusCode, cached.getBody(), wireBytes,
+                    etag != null ? etag : cached.getEtag(),
+                    lastModified != null ? lastModified : cached.getLastModified());
+        }
+    }
+
+    private static String text(RawJson body) {
+        return body != null ? body.toString() : null;
+    }
+
     private void saveRateLimitLog(String traceId) {
         ExternalCallLog callLog = new ExternalCallLog();
         callLog.setTraceId(traceId);
@@ -198,6 +850,18 @@ public class DictQueryServiceImpl implements DictQueryService {
         externalCallLogService.saveLog(callLog);
     }
 
+    private Counter refreshCounter(String result) {
+        return meterRegistry.counter("dict.cache.refresh", "result", result);
+    }
+
+    private DictQueryRequestDTO toRequest(DictCacheKey cacheKey) {
+        DictQueryRequestDTO request = new DictQueryRequestDTO();
+        request.setDictType(cacheKey.getDictType());
+        request.setPageNum(cacheKey.getPageNum());
+        request.setPageSize(cacheKey.getPageSize());
+        return request;
+    }
+
     private ExternalCallLog buildLog(String traceId, int attempt) {
         ExternalCallLog callLog = new ExternalCallLog();
         callLog.setTraceId(traceId);
@@ -1,27 +1,106 @@
 package com.example.backend.service.impl;
 
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.example.backend.calllog.CallLogPolicy;
+import com.example.backend.calllog.CallLogWriter;
+import com.example.backend.common.KeysetCursor;
+import com.example.backend.converter.CallLogConverter;
+import com.example.backend.common.RawJson;
+import com.example.backend.dto.CallLogQueryDTO;
 import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.entity.ExternalCallLogKey;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.exception.ErrorCode;
 import com.example.backend.mapper.ExternalCallLogMapper;
 import com.example.backend.service.ExternalCallLogService;
-import lombok.extern.slf4j.Slf4j;
+import com.example.backend.vo.CallLogVO;
+import com.example.backend.vo.PageVO;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-@Slf4j
 @Service
 public class ExternalCallLogServiceImpl implements ExternalCallLogService {
 
+    private final CallLogWriter callLogWriter;
+    private final CallLogPolicy callLogPolicy;
     private final ExternalCallLogMapper externalCallLogMapper;
+    private final CallLogConverter callLogConverter;
 
-    public ExternalCallLogServiceImpl(ExternalCallLogMapper externalCallLogMapper) {
+    public ExternalCallLogServiceImpl(CallLogWriter callLogWriter, CallLogPolicy callLogPolicy,
+                                      ExternalCallLogMapper externalCallLogMapper,
+                                      CallLogConverter callLogConverter) {
+        this.callLogWriter = callLogWriter;
+        this.callLogPolicy = callLogPolicy;
         this.externalCallLogMapper = externalCallLogMapper;
+        this.callLogConverter = callLogConverter;
     }
 
+    /**
+     * 按采样策略过滤后交给 CallLogWriter 异步批量写库，不阻塞调用线程。
+     */
     @Override
     public void saveLog(ExternalCallLog callLog) {
-        try {
-            externalCallLogMapper.insert(callLog);
-        } catch (Exception e) {
-            log.error("保存外部调用日志失败: {}", e.getMessage(), e);
+        if (callLogPolicy.shouldKeep(callLog)) {
+            callLogWriter.write(callLog);
+        }
+    }
+
+    @Override
+    public void saveResponseLog(ExternalCallLog callLog, RawJson body) {
+        callLogPolicy.captureBody(callLog, body);
+        saveLog(callLog);
+    }
+
+    /**
+     * 两步查询：先在二级索引上按游标取 size+1 个 (id, created_at)，再按主键取整行。
+     * 多取的一行只用来判断是否还有下一页。
+     */
+    @Override
+    public PageVO<CallLogVO> query(CallLogQueryDTO query) {
+        if (!StringUtils.hasText(query.getTraceId()) && !StringUtils.hasText(query.getService())) {
+            throw new BusinessException(ErrorCode.PARAM_VALIDATION_FAIL.getCode(), "traceId与service至少指定一个");
         }
+        // ?size= 会把默认值覆盖为 null
+        int size = query.getSize() != null ? query.getSize() : CallLogQueryDTO.DEFAULT_SIZE;
+        KeysetCursor cursor = KeysetCursor.decode(query.getCursor());
+        List<ExternalCallLogKey> keys = externalCallLogMapper.selectKeysetPage(query, cursor, size + 1);
+        boolean hasMore = keys.size() > size;
+        if (hasMore) {
+            keys = keys.subList(0, size);
+        }
+        if (keys.isEmpty()) {
+            return PageVO.ofCursor(Collections.emptyList(), size, null);
+        }
+
+        List<Long> ids = new ArrayList<>(keys.size());
+        LocalDateTime oldest = keys.get(keys.size() - 1).getCreatedAt();
+        LocalDateTime newest = keys.get(0).getCreatedAt();
+        for (ExternalCallLogKey key : keys) {
+            ids.add(key.getId());
+        }
+        // 带上 created_at 范围，分区表只访问涉及的分区
+        Map<Long, ExternalCallLog> rows = new HashMap<>(keys.size() * 2);
+        for (ExternalCallLog row : externalCallLogMapper.selectList(Wrappers.<ExternalCallLog>lambdaQuery()
+                .in(ExternalCallLog::getId, ids)
+                .between(ExternalCallLog::getCreatedAt, oldest, newest))) {
+            rows.put(row.getId(), row);
+        }
+        List<CallLogVO> records = new ArrayList<>(keys.size());
+        for (Long id : ids) {
+            ExternalCallLog row = rows.get(id);
+            if (row != null) {
+                records.add(callLogConverter.toVO(row));
+            }
+        }
+
+        String nextCursor = hasMore ? keys.get(keys.size() - 1).toCursor().encode() : null;
+        return PageVO.ofCursor(records, size, nextCursor);
     }
 }
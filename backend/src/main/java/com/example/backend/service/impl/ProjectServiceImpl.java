@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.backend.common.KeysetCursor;
+import com.example.backend.config.ProjectProperties;
 import com.example.backend.converter.ProjectConverter;
 import com.example.backend.dto.ProjectCreateDTO;
 import com.example.backend.dto.ProjectQueryDTO;
@@ -16,21 +18,50 @@ import com.example.backend.mapper.ProjectMapper;
 import com.example.backend.service.ProjectService;
 import com.example.backend.vo.PageVO;
 import com.example.backend.vo.ProjectVO;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PreDestroy;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> implements ProjectService {
 
     private final ProjectConverter projectConverter;
+    private final ThreadPoolExecutor countExecutor;
+    /** keyword（无关键字为空串）-> 近似总数 */
+    private final LoadingCache<String, Long> approxTotals;
 
-    public ProjectServiceImpl(ProjectConverter projectConverter) {
+    public ProjectServiceImpl(ProjectConverter projectConverter, ProjectProperties properties) {
         this.projectConverter = projectConverter;
+        ProjectProperties.Count config = properties.getCount();
+        // 线程池满时在调用线程执行，退化为串行查询
+        this.countExecutor = new ThreadPoolExecutor(
+                config.getPoolSize(),
+                config.getPoolSize(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("project-count-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.approxTotals = CacheBuilder.newBuilder()
+                .maximumSize(config.getMaxKeys())
+                .refreshAfterWrite(config.getRefreshInterval(), TimeUnit.MILLISECONDS)
+                .expireAfterAccess(config.getExpireAfterAccess(), TimeUnit.MILLISECONDS)
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::countByKeyword), countExecutor));
     }
 
     @Override
@@ -49,15 +80,108 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
 
     @Override
     public PageVO<ProjectVO> pageList(ProjectQueryDTO dto) {
-        Page<Project> page = new Page<>(dto.getPage(), dto.getSize());
-        LambdaQueryWrapper<Project> wrapper = buildQueryWrapper(dto);
-        IPage<Project> resultPage = page(page, wrapper);
+        if (dto.getCursor() != null) {
+            return cursorList(dto);
+        }
+        if (dto.getCount() == ProjectQueryDTO.CountMode.NONE || dto.getCount() == ProjectQueryDTO.CountMode.APPROX) {
+            return countFreeList(dto);
+        }
+        CompletableFuture<Long> total = countAsync(dto.getKeyword());
+        // 总数由上面单独统计，分页插件不再执行 COUNT
+        Page<Project> page = new Page<>(dto.getPage(), dto.getSize(), false);
+        IPage<Project> resultPage = page(page, buildQueryWrapper(dto));
 
         List<ProjectVO> voList = resultPage.getRecords().stream()
                 .map(projectConverter::toVO)
                 .collect(Collectors.toList());
 
-        return PageVO.of(voList, resultPage.getCurrent(), resultPage.getSize(), resultPage.getTotal());
+        return PageVO.of(voList, resultPage.getCurrent(), resultPage.getSize(), join(total));
+    }
+
+    /**
+     * 按页码翻页但不执行 COUNT：多取一行判断 hasMore；APPROX 时附带缓存的近似总数。
+     */
+    private PageVO<ProjectVO> countFreeList(ProjectQueryDTO dto) {
+        long size = dto.getSize();
+        long offset = Math.max(0, dto.getPage() - 1L) * size;
+        LambdaQueryWrapper<Project> wrapper = buildQueryWrapper(dto);
+        wrapper.last("LIMIT " + (size + 1) + " OFFSET " + offset);
+        List<Project> rows = list(wrapper);
+
+        boolean hasMore = rows.size() > size;
+        List<ProjectVO> voList = rows.stream()
+                .limit(size)
+                .map(projectConverter::toVO)
+                .collect(Collectors.toList());
+        if (dto.getCount() != ProjectQueryDTO.CountMode.APPROX) {
+            return PageVO.of(voList, dto.getPage(), size, -1, hasMore);
+        }
+        PageVO<ProjectVO> vo = PageVO.of(voList, dto.getPage(), size, approxTotal(dto.getKeyword()), hasMore);
+        vo.setApproximate(true);
+        return vo;
+    }
+
+    /**
+     * 键集分页：按 (created_at, id) 倒序，用上一页最后一行做 WHERE 条件定位，而不是 OFFSET；
+     * 多取一行判断是否还有下一页。
+     */
+    private PageVO<ProjectVO> cursorList(ProjectQueryDTO dto) {
+        KeysetCursor cursor = KeysetCursor.decode(dto.getCursor());
+        int size = dto.getSize();
+        LambdaQueryWrapper<Project> wrapper = buildQueryWrapper(dto);
+        if (cursor != null) {
+            wrapper.and(w -> w.lt(Project::getCreatedAt, cursor.getCreatedAt())
+                    .or(o -> o.eq(Project::getCreatedAt, cursor.getCreatedAt())
+                            .lt(Project::getId, cursor.getId())));
+        }
+        wrapper.last("LIMIT " + (size + 1));
+        List<Project> rows = list(wrapper);
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Project last = rows.get(size - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        List<ProjectVO> voList = rows.stream()
+                .map(projectConverter::toVO)
+                .collect(Collectors.toList());
+        return PageVO.ofCursor(voList, size, nextCursor);
+    }
+
+    /**
+     * 在事务中时同步统计，保证与数据查询看到同一份数据；否则提交到线程池与数据查询并发执行。
+     */
+    private CompletableFuture<Long> countAsync(String keyword) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return CompletableFuture.completedFuture(countByKeyword(keyword));
+        }
+        return CompletableFuture.supplyAsync(() -> countByKeyword(keyword), countExecutor);
+    }
+
+    private long approxTotal(String keyword) {
+        try {
+            return approxTotals.getUnchecked(StringUtils.hasText(keyword) ? keyword : "");
+        } catch (UncheckedExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private long countByKeyword(String keyword) {
+        return count(buildFilter(keyword));
+    }
+
+    private static long join(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        countExecutor.shutdownNow();
     }
 
     @Override
@@ -76,14 +200,19 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
     }
 
     private LambdaQueryWrapper<Project> buildQueryWrapper(ProjectQueryDTO dto) {
+        LambdaQueryWrapper<Project> wrapper = buildFilter(dto.getKeyword());
+        wrapper.orderByDesc(Project::getCreatedAt).orderByDesc(Project::getId);
+        return wrapper;
+    }
+
+    private LambdaQueryWrapper<Project> buildFilter(String keyword) {
         LambdaQueryWrapper<Project> wrapper = Wrappers.<Project>lambdaQuery()
                 .eq(Project::getDeleted, 0);
-        if (StringUtils.hasText(dto.getKeyword())) {
-            wrapper.and(w -> w.like(Project::getName, dto.getKeyword())
+        if (StringUtils.hasText(keyword)) {
+            wrapper.and(w -> w.like(Project::getName, keyword)
                     .or()
-                    .like(Project::getOwner, dto.getKeyword()));
+                    .like(Project::getOwner, keyword));
         }
-        wrapper.orderByDesc(Project::getCreatedAt);
         return wrapper;
     }
 
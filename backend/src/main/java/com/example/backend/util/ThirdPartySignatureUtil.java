@@ -6,58 +6,193 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Map;
-import java.util.TreeMap;
 
+/**
+ * 第三方接口签名。
+ * <p>
+ * 输出与原实现（URLEncoder + replace、TreeMap 排序、每次新建 Mac）逐字节一致，但：
+ * 时间戳按秒缓存；编码一趟完成并写入线程内复用的缓冲区；Mac 按线程缓存，secret 不变时不重新初始化。
+ */
 @Slf4j
 @Component
 public class ThirdPartySignatureUtil {
 
-    private static final String CHARSET = "UTF-8";
     private static final String ALGORITHM_HMAC_SHA1 = "HmacSHA1";
     private static final String DATE_FORMAT_STRING = "yyyy-MM-dd HH:mm:ss";
     private static final String TIME_ZONE = "Asia/Shanghai";
+    private static final DateTimeFormatter FORMATTER =
+            DateTimeFormatter.ofPattern(DATE_FORMAT_STRING).withZone(ZoneId.of(TIME_ZONE));
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int MAX_CACHED_BUFFER = 8192;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private static final ThreadLocal<MacHolder> MAC = new ThreadLocal<>();
+
+    private volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(Long.MIN_VALUE, null);
 
     public String generateTimestamp() {
-        SimpleDateFormat df = new SimpleDateFormat(DATE_FORMAT_STRING);
-        df.setTimeZone(java.util.TimeZone.getTimeZone(TIME_ZONE));
-        return df.format(new Date());
+        long second = System.currentTimeMillis() / 1000;
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.second != second) {
+            cached = new CachedTimestamp(second, FORMATTER.format(Instant.ofEpochSecond(second)));
+            cachedTimestamp = cached;
+        }
+        return cached.value;
     }
 
     public String specialUrlEncode(String value) throws UnsupportedEncodingException {
-        return URLEncoder.encode(value, CHARSET).replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        encode(value, sb, false);
+        return sb.toString();
     }
 
     public String buildSignString(String url, String method, Map<String, Object> parasMap, String appKey, String timestamp) throws UnsupportedEncodingException {
-        TreeMap<String, Object> sortParasMap = new TreeMap<>(parasMap);
-        sortParasMap.put("appKey", appKey);
-        sortParasMap.put("timestamp", timestamp);
+        StringBuilder sb = buffer();
+        appendSignString(sb, url, method, parasMap, appKey, timestamp);
+        return sb.toString();
+    }
+
+    public String sign(String appSecret, String stringToSign) throws Exception {
+        byte[] signData = mac(appSecret).doFinal(stringToSign.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signData);
+    }
+
+    public String generateSignature(String httpMethod, String path, Map<String, Object> queryParams, String appKey, String appSecret, String timestamp) throws Exception {
+        StringBuilder sb = buffer();
+        appendSignString(sb, path, httpMethod, queryParams, appKey, timestamp);
+        return sign(appSecret, sb.toString());
+    }
 
-        StringBuilder sortQueryStringTmp = new StringBuilder();
-        Iterator<String> it = sortParasMap.keySet().iterator();
-        while (it.hasNext()) {
-            String key = it.next();
-            sortQueryStringTmp.append("&").append(specialUrlEncode(key)).append("=").append(specialUrlEncode(String.valueOf(sortParasMap.get(key))));
+    /**
+     * method&enc(url)&enc(sortedQueryString)。sortedQueryString 由已编码的 key/value 组成，
+     * 再编码一次只会把 % & = 变为 %25 %26 %3D，这里直接按二次编码的结果写出，不生成中间字符串。
+     */
+    private static void appendSignString(StringBuilder sb, String url, String method, Map<String, Object> parasMap,
+                                         String appKey, String timestamp) {
+        String[] keys = sortedKeys(parasMap);
+        sb.append(method.toUpperCase()).append('&');
+        encode(url, sb, false);
+        sb.append('&');
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            if (i > 0) {
+                sb.append("%26");
+            }
+            encode(key, sb, true);
+            sb.append("%3D");
+            Object value = "appKey".equals(key) ? appKey : "timestamp".equals(key) ? timestamp : parasMap.get(key);
+            encode(String.valueOf(value), sb, true);
         }
-        String sortedQueryString = sortQueryStringTmp.substring(1);
+    }
 
-        return method.toUpperCase() + "&" + specialUrlEncode(url) + "&" + specialUrlEncode(sortedQueryString);
+    /**
+     * 与 TreeMap(parasMap) 再放入 appKey、timestamp 后的 key 顺序一致（去重）。
+     */
+    private static String[] sortedKeys(Map<String, Object> parasMap) {
+        String[] keys = new String[parasMap.size() + 2];
+        int n = 0;
+        for (String key : parasMap.keySet()) {
+            keys[n++] = key;
+        }
+        keys[n++] = "appKey";
+        keys[n++] = "timestamp";
+        Arrays.sort(keys, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || !keys[i].equals(keys[distinct - 1])) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return distinct == keys.length ? keys : Arrays.copyOf(keys, distinct);
     }
 
-    public String sign(String appSecret, String stringToSign) throws Exception {
-        SecretKeySpec signingKey = new SecretKeySpec((appSecret + "&").getBytes(CHARSET), ALGORITHM_HMAC_SHA1);
-        Mac mac = Mac.getInstance(ALGORITHM_HMAC_SHA1);
-        mac.init(signingKey);
-        byte[] signData = mac.doFinal(stringToSign.getBytes(CHARSET));
-        return java.util.Base64.getEncoder().encodeToString(signData);
+    /**
+     * RFC3986 编码：保留 A-Z a-z 0-9 - _ . ~，其余按 UTF-8 字节编码为 %XX（大写），
+     * 等价于 URLEncoder.encode 后把 + 换成 %20、* 换成 %2A、%7E 换成 ~。
+     * 非法的单个代理字符与 URLEncoder 一样按 '?' 编码。
+     *
+     * @param twice 是否再编码一次（% 写为 %25）
+     */
+    private static void encode(String value, StringBuilder sb, boolean twice) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                sb.append(c);
+            } else if (c < 0x80) {
+                appendByte(sb, c, twice);
+            } else if (c < 0x800) {
+                appendByte(sb, 0xC0 | (c >> 6), twice);
+                appendByte(sb, 0x80 | (c & 0x3F), twice);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(sb, 0xF0 | (codePoint >> 18), twice);
+                appendByte(sb, 0x80 | ((codePoint >> 12) & 0x3F), twice);
+                appendByte(sb, 0x80 | ((codePoint >> 6) & 0x3F), twice);
+                appendByte(sb, 0x80 | (codePoint & 0x3F), twice);
+            } else if (Character.isSurrogate(c)) {
+                appendByte(sb, '?', twice);
+            } else {
+                appendByte(sb, 0xE0 | (c >> 12), twice);
+                appendByte(sb, 0x80 | ((c >> 6) & 0x3F), twice);
+                appendByte(sb, 0x80 | (c & 0x3F), twice);
+            }
+        }
     }
 
-    public String generateSignature(String httpMethod, String path, Map<String, Object> queryParams, String appKey, String appSecret, String timestamp) throws Exception {
-        String signString = buildSignString(path, httpMethod, queryParams, appKey, timestamp);
-        return sign(appSecret, signString);
+    private static void appendByte(StringBuilder sb, int b, boolean twice) {
+        sb.append(twice ? "%25" : "%").append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder sb = BUFFER.get();
+        if (sb.capacity() > MAX_CACHED_BUFFER) {
+            sb = new StringBuilder(256);
+            BUFFER.set(sb);
+        }
+        sb.setLength(0);
+        return sb;
+    }
+
+    private static Mac mac(String appSecret) throws GeneralSecurityException {
+        MacHolder holder = MAC.get();
+        if (holder == null || !holder.secret.equals(appSecret)) {
+            Mac mac = holder != null ? holder.mac : Mac.getInstance(ALGORITHM_HMAC_SHA1);
+            mac.init(new SecretKeySpec((appSecret + "&").getBytes(StandardCharsets.UTF_8), ALGORITHM_HMAC_SHA1));
+            holder = new MacHolder(appSecret, mac);
+            MAC.set(holder);
+        }
+        return holder.mac;
+    }
+
+    private static final class MacHolder {
+
+        private final String secret;
+        private final Mac mac;
+
+        private MacHolder(String secret, Mac mac) {
+            this.secret = secret;
+            this.mac = mac;
+        }
+    }
+
+    private static final class CachedTimestamp {
+
+        private final long second;
+        private final String value;
+
+        private CachedTimestamp(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
     }
 }
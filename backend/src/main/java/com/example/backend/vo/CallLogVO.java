@@ -0,0 +1,41 @@
+package com.example.backend.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class CallLogVO {
+
+    private Long id;
+
+    private String traceId;
+
+    private String service;
+
+    private String targetUrl;
+
+    private String httpMethod;
+
+    private String queryString;
+
+    private Integer httpStatus;
+
+    private Integer success;
+
+    private Integer attempt;
+
+    private Long durationMs;
+
+    private Long wireBytes;
+
+    private Long decodedBytes;
+
+    private String exceptionType;
+
+    private String exceptionMessage;
+
+    private String bodyHash;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package com.example.backend.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class CallStatsVO {
+
+    private LocalDateTime minute;
+
+    private String service;
+
+    private long callCount;
+
+    private long errorCount;
+
+    private double errorRate;
+
+    private long avgMs;
+
+    private long p50Ms;
+
+    private long p95Ms;
+
+    private long p99Ms;
+
+    private long maxMs;
+
+    /**
+     * HTTP 状态码 -> 次数，0 表示无响应。
+     */
+    private Map<Integer, Long> statusCounts;
+}
@@ -0,0 +1,19 @@
+package com.example.backend.vo;
+
+import lombok.Data;
+
+@Data
+public class DictBatchItemVO {
+
+    private String dictType;
+
+    private Integer pageNum;
+
+    private Integer pageSize;
+
+    private int code;
+
+    private String message;
+
+    private String data;
+}
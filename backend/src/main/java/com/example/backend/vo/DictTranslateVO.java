@@ -0,0 +1,20 @@
+package com.example.backend.vo;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class DictTranslateVO {
+
+    /**
+     * dictType -> (code -> label)，未知 code 的 label 为 null。
+     */
+    private Map<String, Map<String, String>> labels;
+
+    /**
+     * 索引加载失败的 dictType。
+     */
+    private List<String> failedDictTypes;
+}
@@ -13,14 +13,46 @@ public class PageVO<T> {
 
     private long size;
 
+    /**
+     * 总数；未统计时为 -1。
+     */
     private long total;
 
+    private boolean hasMore;
+
+    /**
+     * total 是否为缓存的近似值。
+     */
+    private boolean approximate;
+
+    /**
+     * 游标翻页时下一页的游标，没有更多数据或按页码翻页时为 null。
+     */
+    private String nextCursor;
+
     public static <T> PageVO<T> of(List<T> records, long page, long size, long total) {
         PageVO<T> vo = new PageVO<>();
         vo.setRecords(records);
         vo.setPage(page);
         vo.setSize(size);
         vo.setTotal(total);
+        vo.setHasMore(page * size < total);
+        return vo;
+    }
+
+    public static <T> PageVO<T> of(List<T> records, long page, long size, long total, boolean hasMore) {
+        PageVO<T> vo = of(records, page, size, total);
+        vo.setHasMore(hasMore);
+        return vo;
+    }
+
+    public static <T> PageVO<T> ofCursor(List<T> records, long size, String nextCursor) {
+        PageVO<T> vo = new PageVO<>();
+        vo.setRecords(records);
+        vo.setSize(size);
+        vo.setTotal(-1);
+        vo.setHasMore(nextCursor != null);
+        vo.setNextCursor(nextCursor);
         return vo;
     }
 }
@@ -0,0 +1,46 @@
+package com.example.backend.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DictIndexTest {
+
+    @Test
+    @DisplayName("按 code 查 label，未知 code 返回 null，重复 code 以先出现的为准")
+    public void testLookup() {
+        DictIndex index = DictIndex.build("job_type",
+                Arrays.asList("1", "2", null, "1"),
+                Arrays.asList("开发", "测试", "无效", "重复"));
+
+        assertEquals(2, index.size());
+        assertEquals("开发", index.label("1"));
+        assertEquals("测试", index.label("2"));
+        assertNull(index.label("3"));
+        assertNull(index.label(null));
+        assertFalse(index.contains("3"));
+    }
+
+    @Test
+    @DisplayName("大量条目与相同 label 共享实例")
+    public void testManyEntriesAndInternedLabels() {
+        List<String> codes = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            codes.add(String.valueOf(i));
+            labels.add(new String(i % 2 == 0 ? "even" : "odd"));
+        }
+        DictIndex index = DictIndex.build("big", codes, labels);
+
+        assertEquals(5000, index.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i % 2 == 0 ? "even" : "odd", index.label(String.valueOf(i)));
+        }
+        assertSame(index.label("0"), index.label("2"));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.backend.cache;
+
+import com.example.backend.common.RawJson;
+import com.example.backend.config.ThirdPartyProperties;
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DictResponseCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ThirdPartyProperties.Cache config() {
+        ThirdPartyProperties.Cache config = new ThirdPartyProperties.Cache();
+        config.setDefaultTtl(1000);
+        config.getDictTtl().put("job_type", 5000L);
+        return config;
+    }
+
+    @Test
+    @DisplayName("按 dictType 配置的 TTL 过期")
+    public void testPerDictTypeTtl() {
+        ThirdPartyProperties.Cache config = config();
+        config.getRefresh().setEnabled(false);
+        DictResponseCache cache = new DictResponseCache(config, meterRegistry, ticker);
+        DictCacheKey jobType = new DictCacheKey("job_type", 1, 10);
+        DictCacheKey other = new DictCacheKey("other", 1, 10);
+        cache.put(jobType, RawJson.of("a"));
+        cache.put(other, RawJson.of("b"));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2000));
+        assertEquals(RawJson.of("a"), cache.get(jobType));
+        assertNull(cache.get(other));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(4000));
+        assertNull(cache.get(jobType));
+
+        assertEquals(1.0, meterRegistry.get("dict.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("dict.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("过期后在 stale 窗口内返回旧值并进入刷新候选")
+    public void testStaleWhileRevalidate() {
+        ThirdPartyProperties.Cache config = config();
+        config.getRefresh().setStaleWhileRevalidate(1000);
+        config.getRefresh().setStaleIfError(3000);
+        DictResponseCache cache = new DictResponseCache(config, meterRegistry, ticker);
+        DictCacheKey key = new DictCacheKey("other", 1, 10);
+        cache.put(key, RawJson.of("a"));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        DictResponseCache.Lookup lookup = cache.lookup(key);
+        assertEquals(DictResponseCache.Freshness.STALE, lookup.getFreshness());
+        assertEquals("a", lookup.getBody().toString());
+        assertEquals(Collections.singletonList(key), cache.refreshCandidates(10));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(DictResponseCache.Freshness.STALE_IF_ERROR, cache.lookup(key).getFreshness());
+        assertTrue(cache.refreshCandidates(10).isEmpty());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2000));
+        assertNull(cache.lookup(key));
+    }
+
+    @Test
+    @DisplayName("热点条目在过期前进入刷新候选")
+    public void testRefreshAheadForHotEntries() {
+        ThirdPartyProperties.Cache config = config();
+        config.getRefresh().setHotThreshold(2);
+        config.getRefresh().setAheadRatio(0.5);
+        DictResponseCache cache = new DictResponseCache(config, meterRegistry, ticker);
+        DictCacheKey hot = new DictCacheKey("other", 1, 10);
+        DictCacheKey cold = new DictCacheKey("other", 2, 10);
+        cache.put(hot, RawJson.of("a"));
+        cache.put(cold, RawJson.of("b"));
+        cache.get(hot);
+        cache.get(hot);
+        cache.get(cold);
+
+        assertTrue(cache.refreshCandidates(10).isEmpty());
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertEquals(Collections.singletonList(hot), cache.refreshCandidates(10));
+    }
+
+    @Test
+    @DisplayName("条目数超过上限时淘汰")
+    public void testMaxEntries() {
+        ThirdPartyProperties.Cache config = config();
+        config.setMaxEntries(4);
+        config.setMaxBytes(4096);
+        DictResponseCache cache = new DictResponseCache(config, meterRegistry, ticker);
+
+        for (int i = 1; i <= 20; i++) {
+            cache.put(new DictCacheKey("job_type", i, 10), RawJson.of("v" + i));
+        }
+
+        assertTrue(cache.size() <= 4, "条目数不应超过 4，实际 " + cache.size());
+        assertTrue(cache.bytes() <= 4096);
+    }
+
+    @Test
+    @DisplayName("关闭缓存时不命中")
+    public void testDisabled() {
+        ThirdPartyProperties.Cache config = config();
+        config.setEnabled(false);
+        DictResponseCache cache = new DictResponseCache(config, meterRegistry, ticker);
+        DictCacheKey key = new DictCacheKey("job_type", 1, 10);
+        cache.put(key, RawJson.of("a"));
+        assertNull(cache.get(key));
+    }
+}
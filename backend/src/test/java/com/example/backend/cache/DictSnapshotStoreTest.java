@@ -0,0 +1,129 @@
+package com.example.backend.cache;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DictSnapshotStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DictSnapshotStore store;
+
+    @BeforeEach
+    public void setUp() {
+        ThirdPartyProperties properties = new ThirdPartyProperties();
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setDictTypes(Collections.singletonList("job_type"));
+        store = new DictSnapshotStore(properties, objectMapper, new SimpleMeterRegistry());
+    }
+
+    private String upstreamPage(int pageNum, int pageSize, int total) {
+        StringBuilder sb = new StringBuilder("{\"total\":" + total + ",\"data\":[");
+        int from = (pageNum - 1) * pageSize;
+        for (int i = from; i < Math.min(total, from + pageSize); i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append("{\"code\":\"").append(i).append("\",\"value\":\"v").append(i).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    @Test
+    @DisplayName("逐页拉取后本地任意分页")
+    public void testRefreshAndLocalPaging() throws Exception {
+        store.refresh("job_type", pageNum -> upstreamPage(pageNum, 2, 5));
+
+        DictSnapshot snapshot = store.get("job_type");
+        assertNotNull(snapshot);
+        assertEquals(5, snapshot.size());
+
+        JsonNode page = objectMapper.readTree(snapshot.page(2, 3));
+        assertEquals(5, page.get("total").asInt());
+        assertEquals(2, page.get("totalPage").asInt());
+        assertEquals(2, page.get("data").size());
+        assertEquals("3", page.get("data").get(0).get("code").asText());
+
+        JsonNode beyond = objectMapper.readTree(snapshot.page(9, 3));
+        assertEquals(0, beyond.get("data").size());
+
+        assertEquals("v3", store.index("job_type").label("3"));
+    }
+
+    @Test
+    @DisplayName("拉取失败时保留旧快照")
+    public void testFailedRefreshKeepsOldSnapshot() {
+        store.refresh("job_type", pageNum -> upstreamPage(pageNum, 10, 3));
+        DictSnapshot old = store.get("job_type");
+
+        assertThrows(IllegalStateException.class, () -> store.refresh("job_type",
+                pageNum -> "{\"success\":false,\"errCode\":\"\",\"errMessage\":\"boom\"}"));
+        assertSame(old, store.get("job_type"));
+    }
+
+    @Test
+    @DisplayName("未配置的 dictType 不走快照")
+    public void testNotConfiguredType() {
+        store.refresh("other", pageNum -> upstreamPage(pageNum, 10, 3));
+        assertNull(store.get("other"));
+    }
+
+    @Test
+    @DisplayName("非快照类型按需加载索引，只保留 code -> label")
+    public void testLoadIndex() {
+        assertNull(store.index("other"));
+
+        store.loadIndex("other", pageNum -> upstreamPage(pageNum, 2, 3));
+
+        DictIndex index = store.index("other");
+        assertNotNull(index);
+        assertEquals(3, index.size());
+        assertEquals("v2", index.label("2"));
+        assertNull(store.get("other"));
+    }
+
+    @Test
+    @DisplayName("索引超过 refreshAfter 后需要重新加载，重新加载完成前仍返回旧索引")
+    public void testIndexNeedsRefresh() {
+        ThirdPartyProperties properties = new ThirdPartyProperties();
+        properties.getIndex().setRefreshAfter(0);
+        DictSnapshotStore refreshing = new DictSnapshotStore(properties, objectMapper, new SimpleMeterRegistry());
+        assertFalse(refreshing.needsRefresh("other"));
+
+        refreshing.loadIndex("other", pageNum -> upstreamPage(pageNum, 2, 3));
+        DictIndex old = refreshing.index("other");
+        assertTrue(refreshing.needsRefresh("other"));
+        assertSame(old, refreshing.index("other"));
+
+        refreshing.loadIndex("other", pageNum -> upstreamPage(pageNum, 2, 4));
+        assertEquals(4, refreshing.index("other").size());
+        assertFalse(store.needsRefresh("other"));
+    }
+
+    @Test
+    @DisplayName("响应不带 total 时一直翻到短页或空页")
+    public void testPagingWithoutTotal() {
+        store.refresh("job_type", pageNum -> upstreamPage(pageNum, 2, 5).replace("\"total\":5,", ""));
+        assertEquals(5, store.get("job_type").size());
+
+        List<Integer> fetched = new ArrayList<>();
+        store.loadIndex("other", pageNum -> {
+            fetched.add(pageNum);
+            return upstreamPage(pageNum, 2, 4).replace("\"total\":4,", "");
+        });
+        assertEquals(4, store.index("other").size());
+        assertEquals(Arrays.asList(1, 2, 3), fetched);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.backend.calllog;
+
+import com.example.backend.common.RawJson;
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallLogPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static ExternalCallLog log(String traceId, int success, int attempt) {
+        ExternalCallLog callLog = new ExternalCallLog();
+        callLog.setTraceId(traceId);
+        callLog.setSuccess(success);
+        callLog.setAttempt(attempt);
+        return callLog;
+    }
+
+    @Test
+    @DisplayName("失败与重试总是记录，成功按 traceId 采样且同一链路结果一致")
+    public void testSampling() {
+        ThirdPartyProperties properties = new ThirdPartyProperties();
+        properties.getCallLog().setSuccessSampleRate(0.0);
+        CallLogPolicy policy = new CallLogPolicy(properties, meterRegistry);
+
+        assertTrue(policy.shouldKeep(log("t1", 0, 1)));
+        assertTrue(policy.shouldKeep(log("t1", 1, 2)));
+        assertFalse(policy.shouldKeep(log("t1", 1, 1)));
+        ExternalCallLog transition = log("t1", 1, 0);
+        transition.setExceptionType("CIRCUIT_BREAKER");
+        assertTrue(policy.shouldKeep(transition));
+        assertEquals(1.0, meterRegistry.get("calllog.sampled").tag("result", "skipped").counter().count());
+
+        properties.getCallLog().setSuccessSampleRate(0.5);
+        int kept = 0;
+        for (int i = 0; i < 1000; i++) {
+            String traceId = "trace-" + i;
+            boolean first = policy.sampled(traceId);
+            assertEquals(first, policy.sampled(traceId));
+            kept += first ? 1 : 0;
+        }
+        assertTrue(kept > 400 && kept < 600, "kept=" + kept);
+    }
+
+    @Test
+    @DisplayName("成功调用只记指纹，失败调用记录响应体前缀")
+    public void testBodyCapture() {
+        ThirdPartyProperties properties = new ThirdPartyProperties();
+        properties.getHttp().setLogBodyLimit(4);
+        CallLogPolicy policy = new CallLogPolicy(properties, meterRegistry);
+        RawJson body = RawJson.of("{\"a\":1}");
+
+        ExternalCallLog success = log("t", 1, 1);
+        policy.captureBody(success, body);
+        assertNull(success.getExceptionMessage());
+        assertEquals(body.fingerprint(), success.getBodyHash());
+
+        ExternalCallLog failure = log("t", 0, 1);
+        policy.captureBody(failure, body);
+        assertEquals("{\"a\"", failure.getExceptionMessage());
+
+        properties.getCallLog().setSuccessBody(ThirdPartyProperties.CallLog.BodyCapture.NONE);
+        ExternalCallLog none = log("t", 1, 1);
+        policy.captureBody(none, body);
+        assertNull(none.getBodyHash());
+    }
+}
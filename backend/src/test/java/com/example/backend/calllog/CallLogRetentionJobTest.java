@@ -0,0 +1,91 @@
+package com.example.backend.calllog;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.mapper.ExternalCallLogMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CallLogRetentionJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    private final List<Map<String, Object>> partitions = new ArrayList<>();
+    private final List<Long> expiredIds = new ArrayList<>();
+    private final ExternalCallLogMapper mapper = mock(ExternalCallLogMapper.class);
+
+    private CallLogRetentionJob job(int days, int batchSize) {
+        ThirdPartyProperties properties = new ThirdPartyProperties();
+        ThirdPartyProperties.CallLog.Retention retention = properties.getCallLog().getRetention();
+        retention.setDays(days);
+        retention.setPrecreateDays(1);
+        retention.setBatchSize(batchSize);
+        retention.setBatchPause(0);
+        return new CallLogRetentionJob(properties, mapper, new SimpleMeterRegistry());
+    }
+
+    private void partition(String name, Object bound) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", name);
+        row.put("bound", bound);
+        partitions.add(row);
+    }
+
+    @Test
+    @DisplayName("分区表：预建今明两天的分区，整块删除过期分区")
+    public void testPartitioned() {
+        partition("p20260301", String.valueOf(CallLogRetentionJob.toDays(LocalDate.of(2026, 3, 2))));
+        partition("p20260302", String.valueOf(CallLogRetentionJob.toDays(LocalDate.of(2026, 3, 3))));
+        partition("p20260310", String.valueOf(CallLogRetentionJob.toDays(LocalDate.of(2026, 3, 11))));
+        partition("p_future", "MAXVALUE");
+
+        when(mapper.selectPartitions()).thenReturn(partitions);
+
+        job(8, 100).purge(TODAY);
+
+        InOrder inOrder = inOrder(mapper);
+        inOrder.verify(mapper).selectPartitions();
+        inOrder.verify(mapper).splitFuturePartition("p_future", "p20260311",
+                CallLogRetentionJob.toDays(LocalDate.of(2026, 3, 12)));
+        inOrder.verify(mapper).dropPartition("p20260301");
+        verifyNoMoreInteractions(mapper);
+    }
+
+    @Test
+    @DisplayName("未分区：按主键小批量删除直到没有过期数据")
+    public void testBatchedDelete() {
+        when(mapper.selectPartitions()).thenThrow(new IllegalStateException("Table PARTITIONS not found"));
+        expiredIds.addAll(LongStream.rangeClosed(1, 25).boxed().collect(Collectors.toList()));
+        when(mapper.selectExpiredIds(any(), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(1);
+            return new ArrayList<>(expiredIds.subList(0, Math.min(limit, expiredIds.size())));
+        });
+        when(mapper.deleteBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            expiredIds.removeAll(ids);
+            return ids.size();
+        });
+
+        job(30, 10).purge(TODAY);
+
+        assertTrue(expiredIds.isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<?>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(mapper, times(3)).deleteBatchIds(deleted.capture());
+        assertEquals(5, deleted.getAllValues().get(2).size());
+    }
+}
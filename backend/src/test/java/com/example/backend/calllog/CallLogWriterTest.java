@@ -0,0 +1,191 @@
+package com.example.backend.calllog;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.mapper.ExternalCallLogMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CallLogWriterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<ExternalCallLog>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * insertBatch 记录每一批；gate 未放行前写库会阻塞，用来模拟慢库。
+     */
+    private ExternalCallLogMapper mapper(CountDownLatch gate) {
+        ExternalCallLogMapper mapper = mock(ExternalCallLogMapper.class);
+        when(mapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            gate.await(5, TimeUnit.SECONDS);
+            return record(invocation.getArgument(0));
+        });
+        return mapper;
+    }
+
+    private int record(List<ExternalCallLog> logs) {
+        batches.add(new ArrayList<>(logs));
+        return logs.size();
+    }
+
+    private ThirdPartyProperties properties(int queueCapacity, int batchSize, long flushInterval,
+                                            ThirdPartyProperties.CallLog.OverflowPolicy policy) {
+        ThirdPartyProperties properties = new ThirdPartyProperties();
+        ThirdPartyProperties.CallLog config = properties.getCallLog();
+        config.setQueueCapacity(queueCapacity);
+        config.setBatchSize(batchSize);
+        config.setFlushInterval(flushInterval);
+        config.setOverflowPolicy(policy);
+        return properties;
+    }
+
+    private static ExternalCallLog log(int attempt) {
+        ExternalCallLog callLog = new ExternalCallLog();
+        callLog.setAttempt(attempt);
+        return callLog;
+    }
+
+    private int written() {
+        synchronized (batches) {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    @Test
+    @DisplayName("按 batchSize 分批写入，关闭时写完剩余日志")
+    public void testBatchAndFlushOnShutdown() {
+        CallLogWriter writer = new CallLogWriter(
+                properties(100, 10, 60000, ThirdPartyProperties.CallLog.OverflowPolicy.BLOCK),
+                mapper(new CountDownLatch(0)), meterRegistry);
+        for (int i = 0; i < 25; i++) {
+            writer.write(log(i));
+        }
+
+        writer.shutdown();
+
+        assertEquals(25, written());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(0, writer.queued());
+        assertEquals(25.0, meterRegistry.get("calllog.written").counter().count());
+    }
+
+    @Test
+    @DisplayName("队列满时 DROP_OLDEST 丢弃最旧的日志并计数")
+    public void testDropOldest() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        CallLogWriter writer = new CallLogWriter(
+                properties(5, 1, 10, ThirdPartyProperties.CallLog.OverflowPolicy.DROP_OLDEST),
+                mapper(gate), meterRegistry);
+        writer.write(log(0));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (writer.queued() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        for (int i = 1; i <= 8; i++) {
+            writer.write(log(i));
+        }
+        assertEquals(5, writer.queued());
+
+        gate.countDown();
+        writer.shutdown();
+
+        assertEquals(6, written());
+        assertEquals(4, batches.get(1).get(0).getAttempt());
+        assertEquals(3.0, meterRegistry.get("calllog.dropped").tag("reason", "overflow").counter().count());
+    }
+
+    @Test
+    @DisplayName("写库失败时落入本地缓冲，数据库恢复后回放")
+    public void testSpillAndReplay(@TempDir Path dir) throws Exception {
+        AtomicBoolean down = new AtomicBoolean(true);
+        ExternalCallLogMapper mapper = mock(ExternalCallLogMapper.class);
+        when(mapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            if (down.get()) {
+                throw new IllegalStateException("database down");
+            }
+            return record(invocation.getArgument(0));
+        });
+        when(mapper.insert(any(ExternalCallLog.class))).thenThrow(new IllegalStateException("database down"));
+        ThirdPartyProperties properties = properties(100, 10, 1000, ThirdPartyProperties.CallLog.OverflowPolicy.BLOCK);
+        properties.getCallLog().setAsync(false);
+        properties.getCallLog().getSpool().setEnabled(true);
+        properties.getCallLog().getSpool().setDir(dir.toString());
+        properties.getCallLog().getSpool().setSegmentSize(65536);
+        properties.getCallLog().getSpool().setReplayBatchSize(2);
+        properties.getCallLog().getSpool().setReplayMaxBatches(2);
+        CallLogWriter writer = new CallLogWriter(properties, mapper, meterRegistry);
+        for (int i = 0; i < 5; i++) {
+            writer.write(log(i));
+        }
+        awaitSpilled(5);
+        writer.replaySpool();
+        assertEquals(0, written());
+        assertEquals(5.0, meterRegistry.get("calllog.spool.spilled").counter().count());
+
+        down.set(false);
+        writer.replaySpool();
+        assertEquals(4, written(), "单轮最多回放 2 批");
+        writer.replaySpool();
+        writer.shutdown();
+
+        assertEquals(5, written());
+        assertEquals(4, batches.get(2).get(0).getAttempt());
+        assertEquals(0.0, meterRegistry.get("calllog.spool.bytes").gauge().value());
+        assertEquals(0.0, meterRegistry.get("calllog.dropped").tag("reason", "error").counter().count());
+    }
+
+    @Test
+    @DisplayName("数据库卡住时溢出的日志由后台线程写入本地缓冲，恢复后回放")
+    public void testOverflowSpilledInBackground(@TempDir Path dir) throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        ThirdPartyProperties properties = properties(2, 1, 10, ThirdPartyProperties.CallLog.OverflowPolicy.DROP_NEW);
+        properties.getCallLog().getSpool().setEnabled(true);
+        properties.getCallLog().getSpool().setDir(dir.toString());
+        properties.getCallLog().getSpool().setSegmentSize(65536);
+        CallLogWriter writer = new CallLogWriter(properties, mapper(gate), meterRegistry);
+        writer.write(log(0));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (writer.queued() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        for (int i = 1; i <= 6; i++) {
+            writer.write(log(i));
+        }
+        awaitSpilled(4);
+        assertEquals(0.0, meterRegistry.get("calllog.dropped").tag("reason", "overflow").counter().count());
+
+        // 恢复后队列中的 1、2 也进入缓冲，由回放统一写入
+        gate.countDown();
+        awaitSpilled(6);
+        writer.replaySpool();
+        writer.shutdown();
+
+        assertEquals(7, written());
+        assertEquals(6.0, meterRegistry.get("calllog.spool.replayed").counter().count());
+    }
+
+    private void awaitSpilled(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("calllog.spool.spilled").counter().count() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, meterRegistry.get("calllog.spool.spilled").counter().count());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.backend.calllog;
+
+import com.example.backend.config.ThirdPartyProperties;
+import com.example.backend.entity.ExternalCallStats;
+import com.example.backend.mapper.ExternalCallStatsMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CallStatsAggregatorTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.MINUTES.toMillis(1000));
+    private final ExternalCallStatsMapper mapper = mock(ExternalCallStatsMapper.class);
+
+    @Test
+    @DisplayName("按分钟与状态码汇总，分钟结束一分钟后才写入，直方图可解码合并")
+    public void testFlushCompletedMinutes() {
+        CallStatsAggregator aggregator = new CallStatsAggregator(
+                new ThirdPartyProperties.CallLog.Stats(), mapper, new SimpleMeterRegistry(), now::get);
+        for (int i = 1; i <= 100; i++) {
+            aggregator.record("DICT_QUERY", 200, true, i);
+        }
+        aggregator.record("DICT_QUERY", 500, false, 1000);
+        aggregator.record("DICT_QUERY", 0, false, 3000);
+
+        aggregator.flushCompleted();
+        verify(mapper, never()).insert(any(ExternalCallStats.class));
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(1));
+        aggregator.record("DICT_QUERY", 200, true, 5);
+        aggregator.flushCompleted();
+        verify(mapper, never()).insert(any(ExternalCallStats.class));
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(1));
+        aggregator.flushCompleted();
+
+        ArgumentCaptor<ExternalCallStats> captor = ArgumentCaptor.forClass(ExternalCallStats.class);
+        verify(mapper, times(3)).insert(captor.capture());
+        List<ExternalCallStats> rows = new ArrayList<>(captor.getAllValues());
+        rows.sort(Comparator.comparing(ExternalCallStats::getHttpStatus));
+        assertEquals(0, rows.get(0).getHttpStatus());
+        ExternalCallStats ok = rows.get(1);
+        assertEquals(100L, ok.getCallCount());
+        assertEquals(0L, ok.getErrorCount());
+        assertEquals(5050L, ok.getTotalMs());
+        assertEquals(50, ok.getP50Ms(), 1);
+        assertEquals(95, ok.getP95Ms(), 1);
+        assertEquals(1L, rows.get(2).getErrorCount());
+
+        Histogram merged = CallStatsAggregator.decode(ok.getHistogram());
+        merged.add(CallStatsAggregator.decode(rows.get(2).getHistogram()));
+        assertEquals(101, merged.getTotalCount());
+        assertEquals(1000, merged.getMaxValue(), 10);
+
+        aggregator.flushAll();
+        verify(mapper, times(4)).insert(any(ExternalCallStats.class));
+    }
+}
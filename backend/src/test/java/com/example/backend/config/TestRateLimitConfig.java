@@ -1,7 +1,7 @@
 package com.example.backend.config;
 
-import com.google.common.util.concurrent.RateLimiter;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import com.example.backend.ratelimit.KeyedRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -11,8 +11,12 @@ public class TestRateLimitConfig {
 
     @Bean
     @Primary
-    public RateLimiter testRateLimitBucket() {
-        RateLimiter limiter = RateLimiter.create(10000);
-        return limiter;
+    public KeyedRateLimiter testRateLimitBucket() {
+        ThirdPartyProperties.RateLimit config = new ThirdPartyProperties.RateLimit();
+        config.setCapacity(10000);
+        config.setRefillTokens(10000);
+        config.getPerKey().setCapacity(10000);
+        config.getPerKey().setRefillTokens(10000);
+        return new KeyedRateLimiter(config, new SimpleMeterRegistry());
     }
 }
@@ -0,0 +1,112 @@
+package com.example.backend.controller;
+
+import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.mapper.ExternalCallLogMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CallLogControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ExternalCallLogMapper externalCallLogMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        externalCallLogMapper.delete(null);
+    }
+
+    private void insert(String traceId, String service, int success, LocalDateTime createdAt) {
+        ExternalCallLog callLog = new ExternalCallLog();
+        callLog.setTraceId(traceId);
+        callLog.setService(service);
+        callLog.setTargetUrl("http://upstream/dict");
+        callLog.setHttpMethod("GET");
+        callLog.setSuccess(success);
+        callLog.setAttempt(1);
+        callLog.setCreatedAt(createdAt);
+        externalCallLogMapper.insert(callLog);
+    }
+
+    private JsonNode get(String query) throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/call-logs?" + query, String.class);
+        return objectMapper.readTree(response.getBody());
+    }
+
+    @Test
+    @DisplayName("键集分页：按时间倒序逐页读取，同一时间的行按 id 区分，不重复不遗漏")
+    public void testCursorPagination() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 10, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            insert("t" + i, "DICT_QUERY", i % 2, base.plusSeconds(i / 2));
+        }
+        insert("other", "OTHER", 1, base);
+
+        List<String> traceIds = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode data = get("service=DICT_QUERY&size=2" + (cursor != null ? "&cursor=" + cursor : "")).get("data");
+            data.get("records").forEach(record -> traceIds.add(record.get("traceId").asText()));
+            cursor = data.get("nextCursor").isNull() ? null : data.get("nextCursor").asText();
+            assertEquals(cursor != null, data.get("hasMore").asBoolean());
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, traceIds.size());
+        assertEquals("t4", traceIds.get(0));
+        assertEquals("t0", traceIds.get(4));
+        assertEquals(5, traceIds.stream().distinct().count());
+
+        JsonNode failed = get("service=DICT_QUERY&success=0&from=2026-03-01 10:00:01").get("data").get("records");
+        assertEquals(2, failed.size());
+        assertEquals("t4", failed.get(0).get("traceId").asText());
+        assertEquals("t2", failed.get(1).get("traceId").asText());
+
+        JsonNode byTrace = get("traceId=other").get("data").get("records");
+        assertEquals(1, byTrace.size());
+
+        JsonNode emptySize = get("service=DICT_QUERY&size=").get("data");
+        assertEquals(5, emptySize.get("records").size());
+    }
+
+    @Test
+    @DisplayName("traceId 与 service 都未指定或游标非法时返回 400")
+    public void testValidation() {
+        ResponseEntity<String> missing = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/call-logs?success=1", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+
+        ResponseEntity<String> badCursor = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/call-logs?service=DICT_QUERY&cursor=bm90LWEtY3Vyc29y", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.backend.controller;
 
+import com.example.backend.calllog.CallStatsAggregator;
+import com.example.backend.common.RawJson;
 import com.example.backend.config.TestRateLimitConfig;
 import com.example.backend.entity.ExternalCallLog;
+import com.example.backend.entity.ExternalCallStats;
 import com.example.backend.mapper.ExternalCallLogMapper;
+import com.example.backend.mapper.ExternalCallStatsMapper;
+import com.example.backend.ratelimit.KeyedRateLimiter;
+import com.example.backend.service.impl.DictQueryServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
-import com.google.common.util.concurrent.RateLimiter;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -18,7 +26,10 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
@@ -30,7 +41,8 @@ import static org.junit.jupiter.api.Assertions.*;
     "third-party.rate-limit.capacity=1000",
     "third-party.rate-limit.refill-tokens=1000",
     "third-party.http.retry.initial-delay=50",
-    "third-party.http.retry.max-delay=100"
+    "third-party.http.retry.max-delay=100",
+    "third-party.cache.dict-ttl[etag_type]=1"
 })
 @Import(TestRateLimitConfig.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
@@ -49,7 +61,19 @@ public class DictQueryControllerTest {
     private ObjectMapper objectMapper;
 
     @Autowired(required = false)
-    private RateLimiter testRateLimiter;
+    private KeyedRateLimiter testRateLimiter;
+
+    @Autowired
+    private DictQueryServiceImpl dictQueryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CallStatsAggregator callStatsAggregator;
+
+    @Autowired
+    private ExternalCallStatsMapper externalCallStatsMapper;
 
     private WireMockServer wireMockServer;
 
@@ -93,6 +117,8 @@ public class DictQueryControllerTest {
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
+        assertNotNull(response.getHeaders().getFirst("X-RateLimit-Remaining"));
+        assertNotNull(response.getHeaders().getFirst("X-RateLimit-Limit"));
 
         List<ExternalCallLog> logs = externalCallLogMapper.selectList(null);
         assertEquals(1, logs.size());
@@ -104,6 +130,34 @@ public class DictQueryControllerTest {
         assertEquals("DICT_QUERY", log.getService());
     }
 
+    @Test
+    @DisplayName("上游返回 HTTP 200 的业务错误时不写入缓存，下次请求重新访问上游")
+    public void testBusinessErrorNotCached() {
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"success\":false,\"errCode\":\"E01\",\"errMessage\":\"busy\"}")));
+
+        String url = "http://localhost:" + port + "/api/dict/query?pageNum=1&pageSize=10&dictType=job_type";
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity(url, String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity(url, String.class).getStatusCode());
+
+        verify(2, getRequestedFor(urlPathEqualTo("/api/v1/dataapi/execute/dict/query")));
+        List<ExternalCallLog> logs = externalCallLogMapper.selectList(null);
+        assertEquals(2, logs.size());
+        assertEquals(0, logs.get(0).getSuccess());
+        assertEquals("THIRD_PARTY_BUSINESS_ERROR", logs.get(0).getExceptionType());
+        assertTrue(logs.get(0).getExceptionMessage().contains("busy"));
+
+        externalCallStatsMapper.delete(null);
+        callStatsAggregator.flushAll();
+        List<ExternalCallStats> stats = externalCallStatsMapper.selectList(null);
+        assertEquals(2L, stats.stream().mapToLong(ExternalCallStats::getCallCount).sum());
+        assertEquals(2L, stats.stream().mapToLong(ExternalCallStats::getErrorCount).sum(),
+                "分钟汇总与调用日志一样把业务错误计为失败");
+    }
+
     @Test
     @DisplayName("失败场景：第三方返回500，触发重试2次，共3条日志")
     public void testRetryScenario() {
@@ -137,4 +191,283 @@ public class DictQueryControllerTest {
             assertEquals("DICT_QUERY", log.getService(), "第" + (i+1) + "次尝试的service值不正确");
         }
     }
+
+    @Test
+    @DisplayName("异步接口：第三方先返回500后返回200，重试后成功")
+    public void testAsyncRetryThenSuccess() throws Exception {
+        String expectedResponse = "{\"total\":5,\"data\":[{\"code\":\"4\",\"value\":\"jar\"}]}";
+
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .inScenario("async-retry")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(500))
+                .willSetStateTo("recovered"));
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .inScenario("async-retry")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(expectedResponse)));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/dict/query/async?pageNum=1&pageSize=10&dictType=job_type",
+                String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedResponse, objectMapper.readTree(response.getBody()).get("data").asText());
+
+        List<ExternalCallLog> logs = externalCallLogMapper.selectList(null);
+        assertEquals(2, logs.size());
+        assertEquals(0, logs.get(0).getSuccess());
+        assertEquals(1, logs.get(1).getSuccess());
+        assertEquals(2, logs.get(1).getAttempt());
+    }
+
+    @Test
+    @DisplayName("批量接口：逐项返回结果，单项失败不影响其它项")
+    public void testBatchQuery() throws Exception {
+        String expectedResponse = "{\"total\":5,\"data\":[{\"code\":\"4\",\"value\":\"jar\"}]}";
+
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withQueryParam("dictType", equalTo("job_type"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(expectedResponse)));
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withQueryParam("dictType", equalTo("bad_type"))
+                .willReturn(aResponse().withStatus(400)));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"items\":[{\"dictType\":\"job_type\",\"pageNum\":1,\"pageSize\":10},"
+                + "{\"dictType\":\"bad_type\",\"pageNum\":1,\"pageSize\":10}]}";
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                "http://localhost:" + port + "/api/dict/query/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode items = objectMapper.readTree(response.getBody()).get("data");
+        assertEquals(2, items.size());
+        assertEquals("job_type", items.get(0).get("dictType").asText());
+        assertEquals(0, items.get(0).get("code").asInt());
+        assertEquals(expectedResponse, items.get(0).get("data").asText());
+        assertEquals("bad_type", items.get(1).get("dictType").asText());
+        assertEquals(50000, items.get(1).get("code").asInt());
+    }
+
+    @Test
+    @DisplayName("批量接口：items为空时返回参数校验失败")
+    public void testBatchQueryValidation() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                "http://localhost:" + port + "/api/dict/query/batch",
+                HttpMethod.POST,
+                new HttpEntity<>("{\"items\":[]}", headers),
+                String.class
+        );
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("透传接口：data 为上游原始 JSON 对象，不做字符串转义；成功日志只记响应体指纹")
+    public void testRawPassThrough() throws Exception {
+        String upstream = "{\"total\":1,\"data\":[{\"code\":\"4\",\"value\":\"技术岗\"}]}";
+
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json;charset=UTF-8")
+                        .withBody(upstream)));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/dict/query/raw?pageNum=1&pageSize=10&dictType=job_type",
+                String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode data = objectMapper.readTree(response.getBody()).get("data");
+        assertTrue(data.isObject());
+        assertEquals(objectMapper.readTree(upstream), data);
+
+        List<ExternalCallLog> logs = externalCallLogMapper.selectList(null);
+        assertEquals(1, logs.size());
+        assertNull(logs.get(0).getExceptionMessage());
+        assertEquals(RawJson.of(upstream).fingerprint(), logs.get(0).getBodyHash());
+    }
+
+    @Test
+    @DisplayName("压缩的错误响应：解压后再写入异常信息与日志")
+    public void testGzipErrorResponse() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{\"errMessage\":\"invalid dictType\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .willReturn(aResponse()
+                        .withStatus(400)
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(compressed.toByteArray())));
+
+        restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/dict/query?pageNum=1&pageSize=10&dictType=job_type", String.class);
+
+        List<ExternalCallLog> logs = externalCallLogMapper.selectList(null);
+        assertEquals(1, logs.size());
+        assertEquals(400, logs.get(0).getHttpStatus());
+        assertTrue(logs.get(0).getExceptionMessage().contains("invalid dictType"), logs.get(0).getExceptionMessage());
+    }
+
+    @Test
+    @DisplayName("压缩响应：声明 gzip 并边读边解压，日志记录传输与解压后字节数")
+    public void testGzipResponse() throws Exception {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            items.append(i == 0 ? "" : ",").append("{\"code\":\"").append(i).append("\",\"value\":\"岗位\"}");
+        }
+        String upstream = "{\"total\":200,\"data\":[" + items + "]}";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(upstream.getBytes(StandardCharsets.UTF_8));
+        }
+
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withHeader("Accept-Encoding", containing("gzip"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json;charset=UTF-8")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withBody(compressed.toByteArray())));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/dict/query/raw?pageNum=1&pageSize=10&dictType=job_type",
+                String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(objectMapper.readTree(upstream), objectMapper.readTree(response.getBody()).get("data"));
+
+        List<ExternalCallLog> logs = externalCallLogMapper.selectList(null);
+        assertEquals(1, logs.size());
+        ExternalCallLog log = logs.get(0);
+        assertEquals(compressed.size(), log.getWireBytes().longValue());
+        assertEquals(upstream.getBytes(StandardCharsets.UTF_8).length, log.getDecodedBytes().longValue());
+    }
+
+    @Test
+    @DisplayName("条件请求：If-None-Match 命中时返回 304 且不带响应体")
+    public void testClientConditionalRequest() {
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"total\":1,\"data\":[{\"code\":\"4\",\"value\":\"jar\"}]}")));
+        String url = "http://localhost:" + port + "/api/dict/query?pageNum=1&pageSize=10&dictType=job_type";
+
+        ResponseEntity<String> first = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\""));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("W/" + etag);
+        ResponseEntity<String> second = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getETag());
+
+        headers.setIfNoneMatch("\"other\"");
+        ResponseEntity<String> third = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, third.getStatusCode());
+        assertNotNull(third.getBody());
+
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo("/api/v1/dataapi/execute/dict/query")));
+        assertEquals(1.0, meterRegistry.get("dict.conditional.requests").tag("result", "not_modified").counter().count());
+    }
+
+    @Test
+    @DisplayName("上游条件请求：缓存过期后带 If-None-Match 刷新，304 时沿用旧值")
+    public void testUpstreamRevalidation() throws Exception {
+        String upstream = "{\"total\":1,\"data\":[{\"code\":\"1\",\"value\":\"v\"}]}";
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody(upstream)));
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304).withHeader("ETag", "\"v1\"")));
+        String url = "http://localhost:" + port + "/api/dict/query/raw?pageNum=1&pageSize=10&dictType=etag_type";
+
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity(url, String.class).getStatusCode());
+        Thread.sleep(20);
+        ResponseEntity<String> stale = restTemplate.getForEntity(url, String.class);
+        assertEquals(objectMapper.readTree(upstream), objectMapper.readTree(stale.getBody()).get("data"));
+
+        dictQueryService.refreshHotEntries();
+
+        wireMockServer.verify(moreThanOrExactly(1), getRequestedFor(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withHeader("If-None-Match", equalTo("\"v1\"")));
+        assertTrue(meterRegistry.get("dict.upstream.revalidations").tag("result", "not_modified").counter().count() >= 1);
+        assertTrue(externalCallLogMapper.selectList(null).stream()
+                .anyMatch(log -> Integer.valueOf(304).equals(log.getHttpStatus()) && log.getSuccess() == 1));
+    }
+
+    @Test
+    @DisplayName("翻译接口：按需全量加载字典后按 code 返回 label")
+    public void testTranslate() throws Exception {
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withQueryParam("dictType", equalTo("job_type"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"total\":2,\"data\":[{\"code\":\"4\",\"value\":\"jar\"},"
+                                + "{\"code\":\"5\",\"value\":\"war\"}]}")));
+        stubFor(get(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withQueryParam("dictType", equalTo("bad_type"))
+                .willReturn(aResponse().withStatus(400)));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"items\":[{\"dictType\":\"job_type\",\"codes\":[\"5\",\"4\",\"9\"]},"
+                + "{\"dictType\":\"bad_type\",\"codes\":[\"1\"]}]}";
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                "http://localhost:" + port + "/api/dict/translate",
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode data = objectMapper.readTree(response.getBody()).get("data");
+        JsonNode jobType = data.get("labels").get("job_type");
+        assertEquals("war", jobType.get("5").asText());
+        assertEquals("jar", jobType.get("4").asText());
+        assertTrue(jobType.get("9").isNull());
+        assertEquals("bad_type", data.get("failedDictTypes").get(0).asText());
+
+        ResponseEntity<String> again = restTemplate.exchange(
+                "http://localhost:" + port + "/api/dict/translate",
+                HttpMethod.POST,
+                new HttpEntity<>("{\"items\":[{\"dictType\":\"job_type\",\"codes\":[\"4\"]}]}", headers),
+                String.class
+        );
+        assertEquals(HttpStatus.OK, again.getStatusCode());
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo("/api/v1/dataapi/execute/dict/query"))
+                .withQueryParam("dictType", equalTo("job_type")));
+    }
 }
@@ -2,6 +2,7 @@ package com.example.backend.controller;
 
 import com.example.backend.entity.Project;
 import com.example.backend.mapper.ProjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,7 +15,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -112,6 +117,78 @@ public class ProjectControllerTest {
                 .andExpect(jsonPath("$.data.total").value(1));
     }
 
+    @Test
+    public void testCursorPagination() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/projects")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"Cursor " + i + "\",\"owner\":\"Eve\",\"status\":1}"))
+                    .andExpect(status().isOk());
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            MvcResult result = mockMvc.perform(get("/api/projects")
+                            .param("size", "2")
+                            .param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(0))
+                    .andExpect(jsonPath("$.data.total").value(-1))
+                    .andReturn();
+            JsonNode data = objectMapper.readTree(result.getResponse().getContentAsString()).get("data");
+            data.get("records").forEach(record -> seen.add(record.get("id").asLong()));
+            cursor = data.get("nextCursor").isNull() ? null : data.get("nextCursor").asText();
+            pages++;
+        }
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+
+        mockMvc.perform(get("/api/projects").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        for (String size : new String[]{"0", "-1", "101", ""}) {
+            mockMvc.perform(get("/api/projects").param("size", size).param("cursor", ""))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/projects").param("size", size).param("count", "NONE"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void testCountModes() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/projects")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"Count " + i + "\",\"owner\":\"Frank\",\"status\":1}"))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/projects").param("size", "2").param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.records", hasSize(2)))
+                .andExpect(jsonPath("$.data.total").value(-1))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+        mockMvc.perform(get("/api/projects").param("size", "2").param("page", "2").param("count", "NONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.records", hasSize(1)))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
+
+        mockMvc.perform(get("/api/projects").param("size", "2").param("keyword", "Count").param("count", "APPROX"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.records", hasSize(2)))
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.approximate").value(true))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+
+        mockMvc.perform(get("/api/projects").param("size", "2").param("page", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.records", hasSize(1)))
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.approximate").value(false))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
+    }
+
     @Test
     public void testUpdateProject() throws Exception {
         String createRequest = "{\"name\":\"Update Test\",\"owner\":\"Alice\",\"status\":0}";
@@ -0,0 +1,126 @@
+package com.example.backend.ratelimit;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    @Test
+    @DisplayName("突发最多 capacity 个，之后按 refillTokens/refillDuration 补充")
+    public void testCapacityAndRefill() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(5, 10, 1000, now::get);
+
+        assertEquals(5, bucket.available());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(), "第" + (i + 1) + "个令牌应可用");
+        }
+        assertFalse(bucket.tryAcquire());
+        assertEquals(0, bucket.available());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(1, bucket.available());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(5, bucket.available());
+    }
+
+    @Test
+    @DisplayName("reserve 在等待上限内返回等待时间，超出时不占用令牌")
+    public void testReserveWithWait() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1, 10, 1000, now::get);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(-1, bucket.reserve(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    @DisplayName("单个 key 耗尽令牌不影响其它 key，全局拒绝时归还 key 令牌")
+    public void testKeyedBuckets() {
+        ThirdPartyProperties.RateLimit config = new ThirdPartyProperties.RateLimit();
+        config.setCapacity(3);
+        config.setRefillTokens(1);
+        config.setRefillDurationSeconds(60);
+        config.getPerKey().setCapacity(2);
+        config.getPerKey().setRefillTokens(1);
+        config.getPerKey().setRefillDurationSeconds(60);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KeyedRateLimiter limiter = new KeyedRateLimiter(config, meterRegistry);
+
+        assertTrue(limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("a", 0));
+        assertFalse(limiter.tryAcquire("a", 0));
+        assertEquals(0, limiter.remaining("a"));
+
+        assertTrue(limiter.tryAcquire("b", 0));
+        assertFalse(limiter.tryAcquire("b", 0));
+        assertEquals(0, limiter.remaining("b"));
+        assertEquals(2, limiter.keyCount());
+        assertEquals(1.0, meterRegistry.get("dict.ratelimit.rejected").tag("scope", "global").counter().count());
+        assertEquals(1.0, meterRegistry.get("dict.ratelimit.rejected").tag("scope", "key").counter().count());
+    }
+
+    @Test
+    @DisplayName("reserve 只返回需要等待的时间，不阻塞调用线程")
+    public void testKeyedReserveDoesNotBlock() {
+        ThirdPartyProperties.RateLimit config = new ThirdPartyProperties.RateLimit();
+        config.setCapacity(1);
+        config.setRefillTokens(1);
+        config.setRefillDurationSeconds(1);
+        config.getPerKey().setEnabled(false);
+        KeyedRateLimiter limiter = new KeyedRateLimiter(config, new SimpleMeterRegistry());
+
+        assertEquals(0, limiter.reserve("a", 0));
+        long start = System.nanoTime();
+        long wait = limiter.reserve("a", 2000);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(500) && wait <= TimeUnit.SECONDS.toNanos(1));
+        assertEquals(-1, limiter.reserve("a", 100));
+    }
+
+    @Test
+    @DisplayName("后台请求只在全局余量高于保留比例时占用令牌")
+    public void testHeadroomReservedForForeground() {
+        ThirdPartyProperties.RateLimit config = new ThirdPartyProperties.RateLimit();
+        config.setCapacity(4);
+        config.setRefillTokens(1);
+        config.setRefillDurationSeconds(60);
+        config.getPerKey().setEnabled(false);
+        KeyedRateLimiter limiter = new KeyedRateLimiter(config, new SimpleMeterRegistry());
+
+        assertTrue(limiter.tryAcquireWithHeadroom(0.5));
+        assertTrue(limiter.tryAcquireWithHeadroom(0.5));
+        assertFalse(limiter.tryAcquireWithHeadroom(0.5), "剩余 2 个令牌保留给前台");
+        assertEquals(2, limiter.remaining(null));
+        assertTrue(limiter.tryAcquire(null, 0));
+        assertTrue(limiter.tryAcquire(null, 0));
+    }
+
+    @Test
+    @DisplayName("查询剩余令牌与上限不为未占用过令牌的 key 创建令牌桶")
+    public void testReadOnlyQueriesDoNotCreateBuckets() {
+        ThirdPartyProperties.RateLimit config = new ThirdPartyProperties.RateLimit();
+        config.setCapacity(10);
+        config.getPerKey().setCapacity(3);
+        KeyedRateLimiter limiter = new KeyedRateLimiter(config, new SimpleMeterRegistry());
+
+        assertEquals(3, limiter.remaining("a"));
+        assertEquals(3, limiter.limit("a"));
+        assertEquals(0, limiter.keyCount());
+
+        assertTrue(limiter.tryAcquire("a", 0));
+        assertEquals(1, limiter.keyCount());
+        assertEquals(2, limiter.remaining("a"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ThirdPartyProperties.Concurrency config() {
+        ThirdPartyProperties.Concurrency config = new ThirdPartyProperties.Concurrency();
+        config.setInitialLimit(4);
+        config.setMinLimit(1);
+        config.setMaxLimit(10);
+        config.setBackoffRatio(0.5);
+        config.setQueueSize(1);
+        config.setQueueTimeout(20);
+        return config;
+    }
+
+    @Test
+    @DisplayName("耗时稳定时上限逐步增长，出错时按比例收缩")
+    public void testLimitGrowsAndShrinks() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config(), meterRegistry);
+        long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(rtt);
+        }
+        assertTrue(limiter.getLimit() > 4, "上限应增长，实际" + limiter.getLimit());
+
+        int grown = limiter.getLimit();
+        assertTrue(limiter.tryAcquire());
+        limiter.onDropped(rtt);
+        assertTrue(limiter.getLimit() < grown);
+
+        int beforeSlow = limiter.getLimit();
+        assertTrue(limiter.tryAcquire());
+        limiter.onSuccess(rtt * 10);
+        assertTrue(limiter.getLimit() < beforeSlow, "耗时升高后上限应收缩");
+        assertEquals(limiter.getLimit(), meterRegistry.get("test.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    @DisplayName("达到上限后排队等待，队列满或超时拒绝")
+    public void testQueueAndReject() {
+        ThirdPartyProperties.Concurrency config = config();
+        config.setInitialLimit(1);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", config, meterRegistry);
+
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1.0, meterRegistry.get("test.concurrency.rejected").counter().count());
+
+        limiter.onIgnore();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+}
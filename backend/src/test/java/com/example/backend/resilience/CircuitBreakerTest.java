@@ -0,0 +1,104 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final List<String> transitions = new ArrayList<>();
+
+    private CircuitBreaker newBreaker() {
+        ThirdPartyProperties.CircuitBreaker config = new ThirdPartyProperties.CircuitBreaker();
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallDuration(1000);
+        config.setSlowCallRateThreshold(100);
+        config.setWaitDurationInOpen(5000);
+        config.setPermittedCallsInHalfOpen(2);
+        return new CircuitBreaker("test", config, new SimpleMeterRegistry(),
+                (from, to) -> transitions.add(from + "->" + to), now::get);
+    }
+
+    @Test
+    @DisplayName("失败率达到阈值后打开，等待后半开，探测成功后关闭")
+    public void testOpenHalfOpenClose() {
+        CircuitBreaker breaker = newBreaker();
+        breaker.onResult(false, 10);
+        breaker.onResult(false, 10);
+        breaker.onResult(true, 10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onResult(true, 10);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        now.addAndGet(5000);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission(), "半开状态只放行 2 个探测");
+        breaker.onResult(false, 10);
+        breaker.onResult(false, 10);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(3, transitions.size());
+        assertEquals("CLOSED->OPEN", transitions.get(0));
+        assertEquals("OPEN->HALF_OPEN", transitions.get(1));
+        assertEquals("HALF_OPEN->CLOSED", transitions.get(2));
+    }
+
+    @Test
+    @DisplayName("半开探测失败重新打开")
+    public void testHalfOpenProbeFailure() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, 10);
+        }
+        now.addAndGet(5000);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(true, 10);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    @DisplayName("半开探测被忽略时归还名额，之后的探测仍可关闭熔断器")
+    public void testIgnoredHalfOpenProbe() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, 10);
+        }
+        now.addAndGet(5000);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onIgnored();
+        breaker.onIgnored();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onResult(false, 10);
+        breaker.onResult(false, 10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("慢调用率达到阈值后打开")
+    public void testSlowCallRate() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(false, 2000);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
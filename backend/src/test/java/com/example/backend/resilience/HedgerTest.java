@@ -0,0 +1,153 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThirdPartyProperties properties = new ThirdPartyProperties();
+    private final UpstreamExecutor executor = new UpstreamExecutor(properties, meterRegistry);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("首个请求超过对冲延迟时补发请求，先返回者胜出")
+    public void testHedgeWinsWhenPrimarySlow() throws Exception {
+        ThirdPartyProperties.Hedging config = properties.getHedging();
+        config.setEnabled(true);
+        config.setMaxDelay(50);
+        config.setMaxPerSecond(100);
+        Hedger hedger = new Hedger("test", config, executor, meterRegistry);
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            String result = hedger.execute(() -> {
+                if (invocations.incrementAndGet() == 1) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "primary";
+                }
+                return "hedge";
+            }).get(2, TimeUnit.SECONDS);
+
+            assertEquals("hedge", result);
+            assertEquals(2, invocations.get());
+            awaitCounter("test.hedge.wins", "hedge");
+            assertEquals(1.0, meterRegistry.get("test.hedge.sent").counter().count());
+            assertEquals(1.0, meterRegistry.get("test.hedge.wins").tag("winner", "hedge").counter().count());
+            // 被中止的首个请求按下界记录耗时
+            assertEquals(1, hedger.latencyTracker().count());
+            assertTrue(hedger.latencyTracker().percentile(100) >= 50);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("首个请求在对冲延迟内返回时不补发")
+    public void testNoHedgeWhenPrimaryFast() throws Exception {
+        ThirdPartyProperties.Hedging config = properties.getHedging();
+        config.setEnabled(true);
+        config.setMaxDelay(200);
+        Hedger hedger = new Hedger("test", config, executor, meterRegistry);
+        AtomicInteger invocations = new AtomicInteger();
+
+        String result = hedger.execute(() -> {
+            invocations.incrementAndGet();
+            return "primary";
+        }).get(2, TimeUnit.SECONDS);
+        awaitCounter("test.hedge.wins", "primary");
+        Thread.sleep(300);
+
+        assertEquals("primary", result);
+        assertEquals(1, invocations.get());
+        assertEquals(1.0, meterRegistry.get("test.hedge.wins").tag("winner", "primary").counter().count());
+        assertNull(meterRegistry.find("test.hedge.sent").counter());
+    }
+
+    @Test
+    @DisplayName("首个请求胜出后，排队中的对冲请求被中止且不调用上游")
+    public void testQueuedHedgeAbortedAfterPrimaryWins() throws Exception {
+        ThirdPartyProperties single = new ThirdPartyProperties();
+        single.getAsync().setCorePoolSize(1);
+        single.getAsync().setMaxPoolSize(1);
+        UpstreamExecutor singleExecutor = new UpstreamExecutor(single, meterRegistry);
+        ThirdPartyProperties.Hedging config = single.getHedging();
+        config.setEnabled(true);
+        config.setMaxDelay(20);
+        config.setMaxPerSecond(100);
+        Hedger hedger = new Hedger("test", config, singleExecutor, meterRegistry);
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            CompletableFuture<String> future = hedger.execute(() -> {
+                invocations.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "primary";
+            });
+            long deadline = System.currentTimeMillis() + 2000;
+            while (meterRegistry.find("test.hedge.sent").counter() == null
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertNotNull(meterRegistry.find("test.hedge.sent").counter());
+            release.countDown();
+
+            assertEquals("primary", future.get(2, TimeUnit.SECONDS));
+            awaitCounter("test.hedge.wins", "primary");
+            Thread.sleep(100);
+            assertEquals(1, invocations.get());
+            assertNull(meterRegistry.find("test.hedge.wins").tag("winner", "hedge").counter());
+        } finally {
+            release.countDown();
+            singleExecutor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("分位数按最近窗口计算")
+    public void testLatencyPercentile() {
+        LatencyTracker tracker = new LatencyTracker(10);
+        assertEquals(-1, tracker.percentile(95));
+        for (int i = 1; i <= 20; i++) {
+            tracker.record(i);
+        }
+        assertEquals(10, tracker.count());
+        assertEquals(20, tracker.percentile(95));
+        assertEquals(15, tracker.percentile(50));
+    }
+
+    /**
+     * 胜出计数在 future 完成之后才累加，这里稍等片刻。
+     */
+    private void awaitCounter(String name, String winner) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (meterRegistry.find(name).tag("winner", winner).counter() == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.backend.resilience;
+
+import com.example.backend.config.ThirdPartyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryEngineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ThirdPartyProperties.Http.Retry config() {
+        ThirdPartyProperties.Http.Retry config = new ThirdPartyProperties.Http.Retry();
+        config.setMaxAttempts(3);
+        config.setInitialDelay(10);
+        config.setMaxDelay(40);
+        return config;
+    }
+
+    @Test
+    @DisplayName("5xx 重试到最大次数，4xx 不重试")
+    public void testRetryByStatusClass() {
+        RetryEngine engine = new RetryEngine("test", config(), meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> engine.execute(attempt -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }, (e, attempt) -> { }));
+        assertEquals(3, calls.get());
+
+        calls.set(0);
+        assertThrows(HttpClientErrorException.class, () -> engine.execute(attempt -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        }, (e, attempt) -> { }));
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("test.retry").tag("outcome", "non_retryable").counter().count());
+    }
+
+    @Test
+    @DisplayName("IO 异常重试后成功")
+    public void testRetryThenSuccess() {
+        RetryEngine engine = new RetryEngine("test", config(), meterRegistry);
+        String result = engine.execute(attempt -> {
+            if (attempt < 2) {
+                throw new ResourceAccessException("timeout");
+            }
+            return "ok";
+        }, (e, attempt) -> { });
+        assertEquals("ok", result);
+    }
+
+    @Test
+    @DisplayName("退避时间不超过上限")
+    public void testJitterBounds() {
+        for (ThirdPartyProperties.Http.Retry.Jitter jitter : ThirdPartyProperties.Http.Retry.Jitter.values()) {
+            ThirdPartyProperties.Http.Retry config = config();
+            config.setJitter(jitter);
+            RetryEngine engine = new RetryEngine("test", config, meterRegistry);
+            long delay = 0;
+            for (int attempt = 1; attempt <= 10; attempt++) {
+                delay = engine.nextDelay(attempt, delay);
+                assertTrue(delay >= 0 && delay <= 40, jitter + " delay=" + delay);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("预算：保底额度用完后按请求比例发放")
+    public void testBudget() {
+        RetryBudget budget = new RetryBudget(0.1, 10, 2);
+        assertTrue(budget.tryWithdraw(1));
+        assertTrue(budget.tryWithdraw(1));
+        assertFalse(budget.tryWithdraw(1));
+
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+        assertTrue(budget.tryWithdraw(1));
+        assertFalse(budget.tryWithdraw(1));
+
+        assertTrue(budget.tryWithdraw(2));
+    }
+}
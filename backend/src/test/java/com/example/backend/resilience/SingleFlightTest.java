@@ -0,0 +1,74 @@
+package com.example.backend.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("并发相同 key 只执行一次 loader")
+    public void testConcurrentCallsCoalesced() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test.singleflight", meterRegistry);
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> singleFlight.execute("k", () -> {
+                    invocations.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "v";
+                })));
+            }
+            while (meterRegistry.get("test.singleflight.calls").tag("role", "coalesced").counter().count()
+                    < threadCount - 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<String> future : futures) {
+                assertEquals("v", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, invocations.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("loader 异常传递给调用方且不残留 in-flight 记录")
+    public void testFailurePropagated() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test.singleflight", meterRegistry);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> singleFlight.execute("k", () -> {
+                    throw new IllegalStateException("boom");
+                }));
+        assertEquals("boom", ex.getMessage());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals("ok", singleFlight.execute("k", () -> "ok"));
+    }
+}
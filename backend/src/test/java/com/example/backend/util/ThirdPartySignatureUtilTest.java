@@ -0,0 +1,132 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThirdPartySignatureUtilTest {
+
+    private static final String[] SAMPLES = {
+            "", "job_type", "a b+c*d~e", "100%", "a&b=c", "技术岗", "emoji😀",
+            "lone\uD800high", "lone\uDC00low", "tail\uD800", "~-_.!'()", "/api/v1/dataapi/execute/dict/query",
+            "\u007F\u0080߿ࠀ￿", "%7E", "null"
+    };
+
+    private final ThirdPartySignatureUtil util = new ThirdPartySignatureUtil();
+
+    @Test
+    @DisplayName("编码结果与 URLEncoder + replace 逐字节一致")
+    public void testEncodeMatchesLegacy() throws Exception {
+        for (String sample : SAMPLES) {
+            assertEquals(Legacy.specialUrlEncode(sample), util.specialUrlEncode(sample), sample);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String value = randomString(random);
+            assertEquals(Legacy.specialUrlEncode(value), util.specialUrlEncode(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("签名串与签名结果与原实现一致")
+    public void testSignatureMatchesLegacy() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> params = new HashMap<>();
+            int count = random.nextInt(5);
+            for (int j = 0; j < count; j++) {
+                params.put(SAMPLES[random.nextInt(SAMPLES.length)] + j, random.nextBoolean() ? randomString(random) : random.nextInt(100));
+            }
+            if (random.nextInt(10) == 0) {
+                params.put("appKey", "overridden");
+            }
+            String appKey = randomString(random);
+            String secret = "secret" + random.nextInt(3);
+            String timestamp = "2024-01-02 03:04:05";
+
+            String expected = Legacy.buildSignString("/api/v1/dataapi/execute/dict/query", "get", params, appKey, timestamp);
+            assertEquals(expected, util.buildSignString("/api/v1/dataapi/execute/dict/query", "get", params, appKey, timestamp));
+            assertEquals(Legacy.sign(secret, expected),
+                    util.generateSignature("get", "/api/v1/dataapi/execute/dict/query", params, appKey, secret, timestamp));
+        }
+    }
+
+    @Test
+    @DisplayName("时间戳格式与 SimpleDateFormat 一致")
+    public void testTimestampFormat() {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        df.setTimeZone(TimeZone.getTimeZone("Asia/Shanghai"));
+        String before = df.format(new Date());
+        String timestamp = util.generateTimestamp();
+        String after = df.format(new Date());
+        assertTrue(timestamp.equals(before) || timestamp.equals(after), timestamp);
+    }
+
+    private static String randomString(Random random) {
+        int length = random.nextInt(12);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    sb.append((char) (0x20 + random.nextInt(0x5F)));
+                    break;
+                case 1:
+                    sb.append((char) (0x80 + random.nextInt(0x780)));
+                    break;
+                case 2:
+                    sb.append((char) (0x4E00 + random.nextInt(0x5000)));
+                    break;
+                default:
+                    sb.append((char) random.nextInt(0x10000));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 重构前的实现，作为对照。
+     */
+    private static final class Legacy {
+
+        static String specialUrlEncode(String value) throws UnsupportedEncodingException {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+        }
+
+        static String buildSignString(String url, String method, Map<String, Object> parasMap, String appKey, String timestamp) throws UnsupportedEncodingException {
+            TreeMap<String, Object> sortParasMap = new TreeMap<>(parasMap);
+            sortParasMap.put("appKey", appKey);
+            sortParasMap.put("timestamp", timestamp);
+
+            StringBuilder sortQueryStringTmp = new StringBuilder();
+            Iterator<String> it = sortParasMap.keySet().iterator();
+            while (it.hasNext()) {
+                String key = it.next();
+                sortQueryStringTmp.append("&").append(specialUrlEncode(key)).append("=").append(specialUrlEncode(String.valueOf(sortParasMap.get(key))));
+            }
+            String sortedQueryString = sortQueryStringTmp.substring(1);
+
+            return method.toUpperCase() + "&" + specialUrlEncode(url) + "&" + specialUrlEncode(sortedQueryString);
+        }
+
+        static String sign(String appSecret, String stringToSign) throws Exception {
+            SecretKeySpec signingKey = new SecretKeySpec((appSecret + "&").getBytes("UTF-8"), "HmacSHA1");
+            Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(signingKey);
+            return java.util.Base64.getEncoder().encodeToString(mac.doFinal(stringToSign.getBytes("UTF-8")));
+        }
+    }
+}
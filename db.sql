@@ -16,5 +16,10 @@ CREATE TABLE IF NOT EXISTS `project` (
     INDEX `idx_status` (`status`),
     INDEX `idx_deleted` (`deleted`),
     INDEX `idx_name` (`name`),
-    INDEX `idx_owner` (`owner`)
+    INDEX `idx_owner` (`owner`),
+    -- 列表按 created_at 倒序分页；二级索引隐含主键 id，键集分页的 (created_at, id) 条件可直接走索引
+    INDEX `idx_deleted_created_at` (`deleted`, `created_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='项目表';
+
+-- 已有库升级：
+-- ALTER TABLE `project` ADD INDEX `idx_deleted_created_at` (`deleted`, `created_at`);